@@ -0,0 +1,362 @@
+package gr.forth.ics.isl;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.jena.atlas.json.JSON;
+import org.apache.jena.atlas.json.JsonObject;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.ontology.OntDocumentManager;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.reasoner.ReasonerRegistry;
+import org.apache.jena.reasoner.ValidityReport;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDF;
+
+/**
+ * Command line tool for classifying and summarising many RDF files in parallel.
+ * Every file is parsed once and reported as one JSON Lines record containing its
+ * detected format, whether it is a schema, class/instance counts and validation results.
+ *
+ * <pre>
+ * java gr.forth.ics.isl.BatchClassifier &lt;directory|glob&gt; [-o results.jsonl] [-t threads] [--resume] [--validate]
+ * </pre>
+ *
+ * With {@code --resume} the files already recorded in the output file are skipped
+ * and new records are appended, so an interrupted run can be continued.
+ */
+public class BatchClassifier {
+
+    /**
+     * Number of files after which a progress line is reported.
+     */
+    private static final int PROGRESS_INTERVAL = 100;
+
+    /**
+     * Reads each file on its own: owl:imports are neither fetched nor counted.
+     */
+    private static final OntModelSpec SPEC = noImports(OntModelSpec.OWL_MEM);
+
+    private final int threads;
+    private final boolean validate;
+    private final PrintStream log;
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong triples = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * Constructs a BatchClassifier.
+     *
+     * @param threads  the number of files processed concurrently
+     * @param validate whether to run an RDFS validity check on every file
+     * @param log      the stream progress and throughput are reported to
+     */
+    public BatchClassifier(int threads, boolean validate, PrintStream log) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive: " + threads);
+        }
+        this.threads = threads;
+        this.validate = validate;
+        this.log = log;
+    }
+
+    /**
+     * Lists the files matched by a directory (searched recursively) or a glob pattern such as
+     * {@code uploads/2024-*}{@code /*.ttl.gz}.
+     *
+     * @param pattern a directory, a single file or a glob pattern
+     * @return the matching regular files, in a stable order
+     * @throws IOException if the directory tree cannot be walked
+     */
+    public static List<Path> listFiles(String pattern) throws IOException {
+        if (!containsGlob(pattern)) {
+            Path root = Paths.get(pattern);
+            if (Files.isRegularFile(root)) {
+                return List.of(root);
+            }
+            return walk(root, p -> true);
+        }
+        // Walk from the deepest directory that contains no glob characters
+        Path path = Paths.get(pattern.replaceAll("[*?\\[{].*$", "x"));
+        Path root = path.getParent() == null ? Paths.get("") : path.getParent();
+        while (!Files.isDirectory(root) && root.getParent() != null) {
+            root = root.getParent();
+        }
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        return walk(root, matcher::matches);
+    }
+
+    private static boolean containsGlob(String pattern) {
+        return pattern.matches(".*[*?\\[{].*");
+    }
+
+    private static List<Path> walk(Path root, PathMatcher matcher) throws IOException {
+        try (Stream<Path> stream = Files.walk(root)) {
+            return stream.filter(Files::isRegularFile)
+                    .filter(p -> !p.getFileName().toString().startsWith("."))
+                    .filter(matcher::matches)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Reads the files already recorded in a JSON Lines result file. Truncated lines left by
+     * an interrupted run are ignored, so those files are processed again.
+     *
+     * @param results the result file
+     * @return the paths of the files already processed
+     * @throws IOException if the file cannot be read
+     */
+    public static Set<String> completedFiles(Path results) throws IOException {
+        Set<String> done = new HashSet<>();
+        if (!Files.exists(results)) {
+            return done;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(results, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    JsonObject record = JSON.parse(line);
+                    done.add(record.get("file").getAsString().value());
+                } catch (RuntimeException e) {
+                    // Partially written record
+                }
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Processes the given files on a bounded worker pool and streams one JSON record per file.
+     * Records are written in completion order and flushed one by one. Files that cannot be
+     * parsed are recorded with an error; once writing a record fails, the remaining files are
+     * skipped and the failure is thrown after the workers have stopped.
+     *
+     * @param files the files to process
+     * @param out   the writer the JSON Lines records are written to
+     * @throws IOException if a record cannot be written
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public void run(List<Path> files, Writer out) throws IOException, InterruptedException {
+        // A bounded queue with caller-runs keeps at most a few files per worker in flight
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        AtomicReference<IOException> writeFailure = new AtomicReference<>();
+        long start = System.nanoTime();
+        try {
+            for (Path file : files) {
+                if (writeFailure.get() != null) {
+                    break;
+                }
+                pool.execute(() -> {
+                    if (writeFailure.get() != null) {
+                        return;
+                    }
+                    String record = classify(file);
+                    synchronized (out) {
+                        try {
+                            out.write(record);
+                            out.write('\n');
+                            out.flush();
+                        } catch (IOException e) {
+                            writeFailure.compareAndSet(null, e);
+                            return;
+                        }
+                    }
+                    long count = processed.incrementAndGet();
+                    if (count % PROGRESS_INTERVAL == 0) {
+                        report(count, start);
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+        report(processed.get(), start);
+        if (writeFailure.get() != null) {
+            throw writeFailure.get();
+        }
+    }
+
+    /**
+     * Drops the files already recorded in a result file, for resuming an interrupted run.
+     *
+     * @param files   the files to process
+     * @param results the result file of the interrupted run
+     * @return the files not recorded yet, in the given order
+     * @throws IOException if the result file cannot be read
+     */
+    public static List<Path> remainingFiles(List<Path> files, Path results) throws IOException {
+        Set<String> done = completedFiles(results);
+        List<Path> remaining = new ArrayList<>();
+        for (Path file : files) {
+            if (!done.contains(file.toString())) {
+                remaining.add(file);
+            }
+        }
+        return remaining;
+    }
+
+    private void report(long count, long start) {
+        double seconds = Math.max((System.nanoTime() - start) / 1e9, 1e-9);
+        log.printf("%d files (%d failed), %d triples, %.1f MB in %.1f s: %.1f files/s, %.0f triples/s%n",
+                count, failed.get(), triples.get(), bytes.get() / 1e6, seconds,
+                count / seconds, triples.get() / seconds);
+    }
+
+    /**
+     * Parses a single file and summarises it as a JSON record.
+     *
+     * @param file the file to classify
+     * @return the JSON record, without a trailing newline
+     */
+    String classify(Path file) {
+        long start = System.nanoTime();
+        StringBuilder json = new StringBuilder(256).append("{\"file\":");
+        Json.quote(json, file.toString());
+        try {
+            bytes.addAndGet(Files.size(file));
+            OntModel model = ModelFactory.createOntologyModel(SPEC);
+            FormatSniffer.Detection detection;
+            String lang;
+            try (InputStream raw = new FileInputStream(file.toFile()); InputStream in = CompressedInput.open(raw)) {
+                detection = FormatSniffer.detect(in);
+                lang = OntologyReasoner.resolveLang(file.getFileName().toString(), detection);
+                model.read(in, file.toUri().toString(), lang);
+            }
+            Graph graph = model.getGraph();
+            triples.addAndGet(graph.size());
+
+            // Distinct classes and typed instances in a single pass over the rdf:type triples
+            Set<Node> classes = new HashSet<>();
+            Set<Node> instances = new HashSet<>();
+            ExtendedIterator<Triple> types = graph.find(Node.ANY, RDF.type.asNode(), Node.ANY);
+            try {
+                while (types.hasNext()) {
+                    Triple t = types.next();
+                    classes.add(t.getObject());
+                    instances.add(t.getSubject());
+                }
+            } finally {
+                types.close();
+            }
+            boolean schema = new OntologyIdentifier().isSchema(model);
+
+            json.append(",\"format\":");
+            Json.quote(json, lang);
+            json.append(",\"confidence\":").append(detection == null ? 0 : detection.getConfidence())
+                    .append(",\"triples\":").append(graph.size())
+                    .append(",\"schema\":").append(schema)
+                    .append(",\"classes\":").append(classes.size())
+                    .append(",\"instances\":").append(instances.size());
+            if (schema) {
+                OntologyReasoner reasoner = new OntologyReasoner();
+                reasoner.setModel(model);
+                json.append(",\"schemaClasses\":").append(reasoner.getAllClasses().size())
+                        .append(",\"properties\":").append(reasoner.getAllProperties().size());
+            }
+            if (validate) {
+                ValidityReport report = ModelFactory.createInfModel(ReasonerRegistry.getRDFSReasoner(), model).validate();
+                json.append(",\"valid\":").append(report.isValid());
+            }
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            json.append(",\"error\":");
+            Json.quote(json, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+        json.append(",\"millis\":").append((System.nanoTime() - start) / 1_000_000);
+        return json.append('}').toString();
+    }
+
+    private static OntModelSpec noImports(OntModelSpec base) {
+        OntModelSpec spec = new OntModelSpec(base);
+        OntDocumentManager documentManager = new OntDocumentManager();
+        documentManager.setProcessImports(false);
+        spec.setDocumentManager(documentManager);
+        return spec;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String input = null;
+        String output = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean resume = false;
+        boolean validate = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-o":
+                    output = args[++i];
+                    break;
+                case "-t":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--resume":
+                    resume = true;
+                    break;
+                case "--validate":
+                    validate = true;
+                    break;
+                default:
+                    input = args[i];
+            }
+        }
+        if (input == null) {
+            System.err.println("Usage: BatchClassifier <directory|glob> [-o results.jsonl] [-t threads] [--resume] [--validate]");
+            System.exit(2);
+        }
+        OntologyReasoner.disableLogging();
+
+        List<Path> files = listFiles(input);
+        Writer out;
+        if (output == null) {
+            out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        } else {
+            Path results = Paths.get(output);
+            if (resume) {
+                List<Path> remaining = remainingFiles(files, results);
+                System.err.println("Resuming: " + (files.size() - remaining.size()) + " files already processed, "
+                        + remaining.size() + " remaining");
+                files = remaining;
+            }
+            out = Files.newBufferedWriter(results, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    resume ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        try {
+            new BatchClassifier(threads, validate, System.err).run(files, out);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package gr.forth.ics.isl;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jena.ext.com.google.common.collect.ArrayListMultimap;
+import org.apache.jena.ext.com.google.common.collect.Multimap;
+
+/**
+ * Class for shipping large listing results in a compact binary form instead of JSON. All
+ * distinct strings of a result go into one table in which each entry stores only the length
+ * of the prefix it shares with the previous entry and the remaining UTF-8 bytes, so
+ * neighbouring URIs in the same namespace cost little more than their local names. The
+ * listing itself then refers to strings by their position in the table, written as unsigned
+ * LEB128 varints.
+ *
+ * <p>A document starts with the magic bytes {@code ORL}, a version byte and a kind byte:</p>
+ * <ul>
+ *   <li>kind 1, a list of URIs as returned by {@link OntologyReasoner#getAllProperties()}:
+ *       just the string table, sorted;</li>
+ *   <li>kind 2, classes with their instances and labels as returned by
+ *       {@link InstanceFetcher#getClassAndInstanceUris()}: the string table, holding the
+ *       classes, then the instances, then the labels in order of first occurrence, the number of
+ *       classes, and for every class its ID, its number of instances and the ID of every
+ *       instance and of its label. Instance and label IDs are shifted by one, 0 meaning a blank
+ *       node instance without a URI or an instance without a label.</li>
+ * </ul>
+ *
+ * <p>Writers stream to the output and readers pass records to a {@link Visitor} while they
+ * decode, so only the string table is held in memory on either side.</p>
+ */
+public final class BinaryListing {
+
+    private static final byte[] MAGIC = {'O', 'R', 'L'};
+    private static final int VERSION = 2;
+    private static final int URI_LIST = 1;
+    private static final int CLASS_INSTANCES = 2;
+
+    /**
+     * Receives the records of a class / instance listing while it is decoded.
+     */
+    public interface Visitor {
+
+        /**
+         * @param classUri    the URI of the class
+         * @param instanceUri the URI of the instance, null for a blank node
+         * @param label       the label of the instance, may be null
+         */
+        void instance(String classUri, String instanceUri, String label);
+    }
+
+    private BinaryListing() {
+    }
+
+    /**
+     * Writes a list of URIs. The URIs are written in sorted order without duplicates. The
+     * stream is flushed but not closed.
+     *
+     * @param uris the URIs
+     * @param out  the stream to write to
+     * @throws IOException if writing fails
+     */
+    public static void writeUris(Collection<String> uris, OutputStream out) throws IOException {
+        Sink sink = new Sink(out);
+        writeHeader(sink, URI_LIST);
+        writeTable(sink, sortedDistinct(new ArrayList<>(uris)));
+        sink.flush();
+    }
+
+    /**
+     * Reads a list of URIs written by {@link #writeUris(Collection, OutputStream)}.
+     *
+     * @param in the stream to read from
+     * @return the URIs, in sorted order
+     * @throws IOException if reading fails or the stream does not hold a URI list
+     */
+    public static List<String> readUris(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        readHeader(data, URI_LIST);
+        return readTable(data);
+    }
+
+    /**
+     * Writes classes with their instances and labels. The stream is flushed but not closed.
+     *
+     * @param listing the instances and labels of every class
+     * @param out     the stream to write to
+     * @throws IOException if writing fails
+     */
+    public static void writeClassInstances(Multimap<String, Pair<String, String>> listing, OutputStream out)
+            throws IOException {
+        // Classes, instances and labels are grouped so that neighbours share their namespace;
+        // sorting the whole table would compress slightly better but costs more than the encoding
+        Map<String, Integer> ids = new HashMap<>((int) ((listing.keySet().size() + 2 * listing.size()) / 0.75f) + 1);
+        List<String> table = new ArrayList<>();
+        for (String cls : listing.keySet()) {
+            intern(cls, ids, table);
+        }
+        for (Pair<String, String> instance : listing.values()) {
+            if (instance.getLeft() != null) {
+                intern(instance.getLeft(), ids, table);
+            }
+        }
+        for (Pair<String, String> instance : listing.values()) {
+            if (instance.getRight() != null) {
+                intern(instance.getRight(), ids, table);
+            }
+        }
+
+        Sink sink = new Sink(out);
+        writeHeader(sink, CLASS_INSTANCES);
+        writeTable(sink, table);
+        sink.varint(listing.keySet().size());
+        for (Map.Entry<String, Collection<Pair<String, String>>> cls : listing.asMap().entrySet()) {
+            sink.varint(ids.get(cls.getKey()));
+            sink.varint(cls.getValue().size());
+            for (Pair<String, String> instance : cls.getValue()) {
+                sink.varint(optionalId(instance.getLeft(), ids));
+                sink.varint(optionalId(instance.getRight(), ids));
+            }
+        }
+        sink.flush();
+    }
+
+    /**
+     * Reads classes with their instances and labels written by
+     * {@link #writeClassInstances(Multimap, OutputStream)}, passing each record to a visitor.
+     *
+     * @param in      the stream to read from
+     * @param visitor receives every instance, grouped by class
+     * @return the number of records read
+     * @throws IOException if reading fails or the stream does not hold a class / instance listing
+     */
+    public static long readClassInstances(InputStream in, Visitor visitor) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        readHeader(data, CLASS_INSTANCES);
+        List<String> table = readTable(data);
+        long records = 0;
+        int classes = readVarint(data);
+        for (int c = 0; c < classes; c++) {
+            String classUri = table.get(readVarint(data));
+            int instances = readVarint(data);
+            for (int i = 0; i < instances; i++) {
+                String instanceUri = optionalString(readVarint(data), table);
+                String label = optionalString(readVarint(data), table);
+                visitor.instance(classUri, instanceUri, label);
+                records++;
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Reads classes with their instances and labels into a multimap, in the shape returned by
+     * {@link InstanceFetcher#getClassAndInstanceUris()}.
+     *
+     * @param in the stream to read from
+     * @return the instances and labels of every class
+     * @throws IOException if reading fails or the stream does not hold a class / instance listing
+     */
+    public static Multimap<String, Pair<String, String>> readClassInstances(InputStream in) throws IOException {
+        Multimap<String, Pair<String, String>> listing = ArrayListMultimap.create();
+        readClassInstances(in, (cls, instance, label) -> listing.put(cls, new ImmutablePair<>(instance, label)));
+        return listing;
+    }
+
+    private static void intern(String string, Map<String, Integer> ids, List<String> table) {
+        if (ids.putIfAbsent(string, table.size()) == null) {
+            table.add(string);
+        }
+    }
+
+    /**
+     * Returns the ID of a string that may be missing, shifted by one so that 0 stands for null.
+     */
+    private static int optionalId(String string, Map<String, Integer> ids) {
+        return string == null ? 0 : ids.get(string) + 1;
+    }
+
+    private static String optionalString(int id, List<String> table) {
+        return id == 0 ? null : table.get(id - 1);
+    }
+
+    private static List<String> sortedDistinct(List<String> strings) {
+        Collections.sort(strings);
+        List<String> distinct = new ArrayList<>(strings.size());
+        String previous = null;
+        for (String string : strings) {
+            if (!string.equals(previous)) {
+                distinct.add(string);
+                previous = string;
+            }
+        }
+        return distinct;
+    }
+
+    private static void writeHeader(Sink out, int kind) throws IOException {
+        for (byte b : MAGIC) {
+            out.write(b);
+        }
+        out.write(VERSION);
+        out.write(kind);
+    }
+
+    private static void readHeader(DataInputStream in, int kind) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new IOException("Not a binary listing");
+            }
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary listing version: " + version);
+        }
+        int found = in.readUnsignedByte();
+        if (found != kind) {
+            throw new IOException("Expected a binary listing of kind " + kind + " but found kind " + found);
+        }
+    }
+
+    /**
+     * Writes strings front coded: the number of strings, then for each the length of the
+     * prefix shared with the previous string, in chars, and the rest of the string as UTF-8.
+     */
+    private static void writeTable(Sink out, List<String> strings) throws IOException {
+        out.varint(strings.size());
+        String previous = "";
+        for (String string : strings) {
+            int shared = sharedPrefix(previous, string);
+            out.varint(shared);
+            out.suffix(string, shared);
+            previous = string;
+        }
+    }
+
+    private static List<String> readTable(DataInputStream in) throws IOException {
+        int size = readVarint(in);
+        List<String> strings = new ArrayList<>(size);
+        String previous = "";
+        byte[] buffer = new byte[256];
+        for (int i = 0; i < size; i++) {
+            int shared = readVarint(in);
+            int length = readVarint(in);
+            if (shared > previous.length()) {
+                throw new IOException("Corrupt string table at entry " + i);
+            }
+            if (buffer.length < length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            in.readFully(buffer, 0, length);
+            previous = previous.substring(0, shared) + new String(buffer, 0, length, StandardCharsets.UTF_8);
+            strings.add(previous);
+        }
+        return strings;
+    }
+
+    /**
+     * Returns the length of the common prefix of two strings, never splitting a surrogate pair.
+     */
+    static int sharedPrefix(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int shared = 0;
+        while (shared < max && a.charAt(shared) == b.charAt(shared)) {
+            shared++;
+        }
+        if (shared > 0 && Character.isHighSurrogate(a.charAt(shared - 1))) {
+            shared--;
+        }
+        return shared;
+    }
+
+    /**
+     * Unsynchronised output buffer writing varints and strings without intermediate arrays.
+     */
+    static final class Sink {
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int position;
+
+        Sink(OutputStream out) {
+            this.out = out;
+        }
+
+        void write(int b) throws IOException {
+            if (position == buffer.length) {
+                drain();
+            }
+            buffer[position++] = (byte) b;
+        }
+
+        /**
+         * Writes a non-negative int as an unsigned LEB128 varint: 7 bits per byte, low bits first,
+         * with the high bit set on all but the last byte.
+         */
+        void varint(int value) throws IOException {
+            if (buffer.length - position < 5) {
+                drain();
+            }
+            while ((value & ~0x7f) != 0) {
+                buffer[position++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        /**
+         * Writes the UTF-8 length and bytes of a string from a given index, encoding ASCII
+         * suffixes directly.
+         */
+        void suffix(String string, int from) throws IOException {
+            int length = string.length() - from;
+            boolean ascii = true;
+            for (int i = from; i < string.length() && ascii; i++) {
+                ascii = string.charAt(i) < 0x80;
+            }
+            if (!ascii) {
+                byte[] bytes = string.substring(from).getBytes(StandardCharsets.UTF_8);
+                varint(bytes.length);
+                for (byte b : bytes) {
+                    write(b);
+                }
+                return;
+            }
+            varint(length);
+            for (int i = from; i < string.length(); i++) {
+                write(string.charAt(i));
+            }
+        }
+
+        private void drain() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+        void flush() throws IOException {
+            drain();
+            out.flush();
+        }
+    }
+
+    static int readVarint(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated varint");
+            }
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
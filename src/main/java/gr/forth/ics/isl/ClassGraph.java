@@ -0,0 +1,442 @@
+package gr.forth.ics.isl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDFS;
+
+/**
+ * Class for answering how schema classes connect to each other through properties.
+ *
+ * <p>The graph has an edge from class A to class B for every property whose domain is A or a
+ * superclass of A, and whose range is B or a superclass of B: an instance of A may use the
+ * property, and its value may be an instance of B. It is precomputed once from the {@code rdfs:domain},
+ * {@code rdfs:range} and {@code rdfs:subClassOf} declarations of a schema and stored as
+ * compressed sparse rows (one offsets array and parallel target/property arrays), so
+ * reachability and path queries walk primitive arrays instead of scanning properties hop by hop.</p>
+ *
+ * <p>Instances are immutable and safe for concurrent use.</p>
+ */
+public class ClassGraph {
+
+    /**
+     * A path between two classes, as the sequence of properties followed.
+     */
+    public static final class PropertyPath {
+
+        private final List<String> classes;
+        private final List<String> properties;
+
+        PropertyPath(List<String> classes, List<String> properties) {
+            this.classes = Collections.unmodifiableList(classes);
+            this.properties = Collections.unmodifiableList(properties);
+        }
+
+        /**
+         * @return the classes along the path, from the start class to the end class
+         */
+        public List<String> getClasses() {
+            return classes;
+        }
+
+        /**
+         * @return the properties followed, one fewer than the classes
+         */
+        public List<String> getProperties() {
+            return properties;
+        }
+
+        /**
+         * @return the number of properties followed
+         */
+        public int length() {
+            return properties.size();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder path = new StringBuilder(classes.get(0));
+            for (int i = 0; i < properties.size(); i++) {
+                path.append(" -").append(properties.get(i)).append("-> ").append(classes.get(i + 1));
+            }
+            return path.toString();
+        }
+    }
+
+    private final String[] classNames;
+    private final String[] propertyNames;
+    private final Map<String, Integer> classIds;
+
+    /**
+     * Edges of class {@code c} are stored at indexes {@code offsets[c]} to {@code offsets[c + 1] - 1}.
+     */
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] properties;
+
+    private ClassGraph(String[] classNames, String[] propertyNames, int[] offsets, int[] targets, int[] properties) {
+        this.classNames = classNames;
+        this.propertyNames = propertyNames;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.properties = properties;
+        this.classIds = new HashMap<>(classNames.length * 2);
+        for (int i = 0; i < classNames.length; i++) {
+            classIds.put(classNames[i], i);
+        }
+    }
+
+    /**
+     * Builds the connectivity graph of a schema.
+     *
+     * @param schema the schema graph
+     * @return the connectivity graph
+     */
+    public static ClassGraph build(Graph schema) {
+        Map<Node, Set<Node>> ancestors = TypeClosure.ancestors(schema);
+        Map<Node, List<Node>> descendants = new HashMap<>();
+        for (Map.Entry<Node, Set<Node>> entry : ancestors.entrySet()) {
+            for (Node ancestor : entry.getValue()) {
+                descendants.computeIfAbsent(ancestor, k -> new ArrayList<>()).add(entry.getKey());
+            }
+        }
+        Map<Node, List<Node>> domains = objects(schema, RDFS.domain.asNode());
+        Map<Node, List<Node>> ranges = objects(schema, RDFS.range.asNode());
+
+        Ids classes = new Ids();
+        Ids props = new Ids();
+        // Edges as (source, target, property) triples, deduplicated
+        Set<Edge> edges = new LinkedHashSet<>();
+        for (Map.Entry<Node, List<Node>> domain : domains.entrySet()) {
+            List<Node> propertyRanges = ranges.get(domain.getKey());
+            if (propertyRanges == null) {
+                continue;
+            }
+            int property = props.id(domain.getKey());
+            for (Node domainClass : domain.getValue()) {
+                List<Node> sources = new ArrayList<>();
+                sources.add(domainClass);
+                sources.addAll(descendants.getOrDefault(domainClass, Collections.emptyList()));
+                for (Node range : propertyRanges) {
+                    List<Node> targets = new ArrayList<>();
+                    targets.add(range);
+                    targets.addAll(descendants.getOrDefault(range, Collections.emptyList()));
+                    for (Node source : sources) {
+                        for (Node target : targets) {
+                            if (source.isURI() && target.isURI()) {
+                                edges.add(new Edge(classes.id(source), classes.id(target), property));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        int n = classes.names.size();
+        int[] offsets = new int[n + 1];
+        for (Edge edge : edges) {
+            offsets[edge.source + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] next = Arrays.copyOf(offsets, n);
+        int[] targets = new int[edges.size()];
+        int[] properties = new int[edges.size()];
+        for (Edge edge : edges) {
+            int slot = next[edge.source]++;
+            targets[slot] = edge.target;
+            properties[slot] = edge.property;
+        }
+        return new ClassGraph(classes.names.toArray(new String[0]), props.names.toArray(new String[0]),
+                offsets, targets, properties);
+    }
+
+    private static Map<Node, List<Node>> objects(Graph schema, Node predicate) {
+        Map<Node, List<Node>> objects = new HashMap<>();
+        ExtendedIterator<Triple> it = schema.find(Node.ANY, predicate, Node.ANY);
+        try {
+            while (it.hasNext()) {
+                Triple t = it.next();
+                if (t.getSubject().isURI() && t.getObject().isURI()) {
+                    objects.computeIfAbsent(t.getSubject(), k -> new ArrayList<>()).add(t.getObject());
+                }
+            }
+        } finally {
+            it.close();
+        }
+        return objects;
+    }
+
+    /**
+     * @return the number of classes connected by at least one property
+     */
+    public int classCount() {
+        return classNames.length;
+    }
+
+    /**
+     * @return the number of edges, counting a property once per pair of domain and range (sub)classes
+     */
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Checks whether a class can reach another one by following properties.
+     *
+     * @param from the URI of the start class
+     * @param to the URI of the end class
+     * @return true if there is a path, also when both classes are the same
+     */
+    public boolean isReachable(String from, String to) {
+        return distance(from, to) >= 0;
+    }
+
+    /**
+     * Returns the length of the shortest property path between two classes.
+     *
+     * @param from the URI of the start class
+     * @param to the URI of the end class
+     * @return the number of properties on the shortest path, or -1 if there is none
+     */
+    public int distance(String from, String to) {
+        int source = id(from);
+        int target = id(to);
+        if (source < 0 || target < 0) {
+            return from.equals(to) ? 0 : -1;
+        }
+        int[] edgeTo = shortestPath(source, target, null, null);
+        if (edgeTo == null) {
+            return -1;
+        }
+        int length = 0;
+        for (int node = target; node != source; node = edgeSource(edgeTo[node])) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Finds the k shortest loopless property paths between two classes with Yen's algorithm.
+     * Paths over different properties between the same classes count as different paths.
+     *
+     * @param from the URI of the start class
+     * @param to the URI of the end class
+     * @param k the maximum number of paths
+     * @return up to k paths, shortest first
+     */
+    public List<PropertyPath> shortestPaths(String from, String to, int k) {
+        int source = id(from);
+        int target = id(to);
+        List<PropertyPath> result = new ArrayList<>();
+        if (k < 1 || source < 0 || target < 0) {
+            return result;
+        }
+        List<int[]> found = new ArrayList<>();
+        int[] first = edgePath(source, target, null, null);
+        if (first == null) {
+            return result;
+        }
+        found.add(first);
+        PriorityQueue<int[]> candidates = new PriorityQueue<>((a, b) -> Integer.compare(a.length, b.length));
+        Set<List<Integer>> seen = new HashSet<>();
+        seen.add(asList(first));
+        boolean[] bannedNodes = new boolean[classNames.length];
+        boolean[] bannedEdges = new boolean[targets.length];
+
+        while (found.size() < k) {
+            int[] previous = found.get(found.size() - 1);
+            for (int i = 0; i < previous.length; i++) {
+                int spur = i == 0 ? source : targets[previous[i - 1]];
+                // Ban the next edge of every found path sharing this root, and the root's nodes
+                for (int[] path : found) {
+                    if (path.length > i && samePrefix(path, previous, i)) {
+                        bannedEdges[path[i]] = true;
+                    }
+                }
+                bannedNodes[source] = i > 0;
+                for (int j = 0; j < i - 1; j++) {
+                    bannedNodes[targets[previous[j]]] = true;
+                }
+                int[] spurPath = edgePath(spur, target, bannedNodes, bannedEdges);
+                if (spurPath != null) {
+                    int[] candidate = Arrays.copyOf(previous, i + spurPath.length);
+                    System.arraycopy(spurPath, 0, candidate, i, spurPath.length);
+                    if (seen.add(asList(candidate))) {
+                        candidates.add(candidate);
+                    }
+                }
+                Arrays.fill(bannedEdges, false);
+                Arrays.fill(bannedNodes, false);
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            found.add(candidates.poll());
+        }
+        for (int[] path : found) {
+            result.add(toPropertyPath(source, path));
+        }
+        return result;
+    }
+
+    private static boolean samePrefix(int[] a, int[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Integer> asList(int[] path) {
+        List<Integer> list = new ArrayList<>(path.length);
+        for (int edge : path) {
+            list.add(edge);
+        }
+        return list;
+    }
+
+    private PropertyPath toPropertyPath(int source, int[] path) {
+        List<String> classes = new ArrayList<>(path.length + 1);
+        List<String> props = new ArrayList<>(path.length);
+        classes.add(classNames[source]);
+        for (int edge : path) {
+            props.add(propertyNames[properties[edge]]);
+            classes.add(classNames[targets[edge]]);
+        }
+        return new PropertyPath(classes, props);
+    }
+
+    /**
+     * Finds a shortest path as a sequence of edge indexes.
+     */
+    private int[] edgePath(int source, int target, boolean[] bannedNodes, boolean[] bannedEdges) {
+        int[] edgeTo = shortestPath(source, target, bannedNodes, bannedEdges);
+        if (edgeTo == null) {
+            return null;
+        }
+        int length = 0;
+        for (int node = target; node != source; node = edgeSource(edgeTo[node])) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int node = target; node != source; node = edgeSource(edgeTo[node])) {
+            path[--length] = edgeTo[node];
+        }
+        return path;
+    }
+
+    /**
+     * Breadth-first search from source to target.
+     *
+     * @return for every reached class the edge it was reached by, or null if target was not reached
+     */
+    private int[] shortestPath(int source, int target, boolean[] bannedNodes, boolean[] bannedEdges) {
+        int[] edgeTo = new int[classNames.length];
+        Arrays.fill(edgeTo, -1);
+        if (source == target) {
+            return edgeTo;
+        }
+        int[] queue = new int[classNames.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        edgeTo[source] = Integer.MAX_VALUE;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int next = targets[e];
+                if (edgeTo[next] != -1 || bannedEdges != null && bannedEdges[e]
+                        || bannedNodes != null && bannedNodes[next]) {
+                    continue;
+                }
+                edgeTo[next] = e;
+                if (next == target) {
+                    edgeTo[source] = -1;
+                    return edgeTo;
+                }
+                queue[tail++] = next;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the class an edge starts from, by binary search over the offsets.
+     */
+    private int edgeSource(int edge) {
+        int low = 0;
+        int high = classNames.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= edge) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private int id(String uri) {
+        Integer id = classIds.get(uri);
+        return id == null ? -1 : id;
+    }
+
+    private static final class Edge {
+
+        final int source;
+        final int target;
+        final int property;
+
+        Edge(int source, int target, int property) {
+            this.source = source;
+            this.target = target;
+            this.property = property;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Edge)) {
+                return false;
+            }
+            Edge other = (Edge) o;
+            return source == other.source && target == other.target && property == other.property;
+        }
+
+        @Override
+        public int hashCode() {
+            return (source * 31 + target) * 31 + property;
+        }
+    }
+
+    /**
+     * Assigns dense IDs to URIs in order of first use.
+     */
+    private static final class Ids {
+
+        final Map<Node, Integer> ids = new HashMap<>();
+        final List<String> names = new ArrayList<>();
+
+        int id(Node node) {
+            return ids.computeIfAbsent(node, k -> {
+                names.add(k.getURI());
+                return names.size() - 1;
+            });
+        }
+    }
+}
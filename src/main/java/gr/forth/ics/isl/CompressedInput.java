@@ -0,0 +1,101 @@
+package gr.forth.ics.isl;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+
+/**
+ * Class for transparently decompressing RDF input while it is being parsed.
+ * Compression is recognised either from a trailing compression suffix
+ * (e.g. {@code .ttl.gz}) or from the magic bytes at the start of the stream,
+ * so that compressed files never have to be unpacked to disk or to memory first.
+ */
+public final class CompressedInput {
+
+    /**
+     * Buffer size used for the decompressing streams.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * File suffixes recognised as compression wrappers around an RDF format.
+     */
+    private static final String[] SUFFIXES = {".gz", ".gzip", ".bz2"};
+
+    private CompressedInput() {
+    }
+
+    /**
+     * Checks whether the given file name, URL or extension ends with a known compression suffix.
+     *
+     * @param name a file name, URL or extension such as {@code .ttl.gz}
+     * @return true if the name denotes compressed content, false otherwise
+     */
+    public static boolean isCompressed(String name) {
+        return !stripSuffix(name).equals(name);
+    }
+
+    /**
+     * Removes a trailing compression suffix, if any.
+     *
+     * @param name a file name, URL or extension
+     * @return the name without its compression suffix
+     */
+    public static String stripSuffix(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (String suffix : SUFFIXES) {
+            if (lower.endsWith(suffix)) {
+                return name.substring(0, name.length() - suffix.length());
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Returns the lower-case RDF extension of a file name or URL, ignoring any compression suffix,
+     * so that {@code data.ttl.gz} yields {@code .ttl}.
+     *
+     * @param name a file name, URL or extension
+     * @return the RDF extension including the leading dot, or an empty string if there is none
+     */
+    public static String formatExtension(String name) {
+        String stripped = stripSuffix(name);
+        int dot = stripped.lastIndexOf('.');
+        int slash = Math.max(stripped.lastIndexOf('/'), stripped.lastIndexOf('\\'));
+        if (dot < 0 || dot < slash) {
+            return "";
+        }
+        return stripped.substring(dot).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Wraps a stream so that gzip or bzip2 content is decompressed on the fly.
+     * The first bytes are inspected without being consumed; uncompressed input is
+     * passed through unchanged (but buffered).
+     *
+     * @param in the raw input stream
+     * @return a stream delivering the uncompressed content
+     * @throws IOException if the stream cannot be read
+     */
+    public static InputStream open(InputStream in) throws IOException {
+        BufferedInputStream buffered = in instanceof BufferedInputStream
+                ? (BufferedInputStream) in : new BufferedInputStream(in, BUFFER_SIZE);
+        buffered.mark(3);
+        int b0 = buffered.read();
+        int b1 = buffered.read();
+        int b2 = buffered.read();
+        buffered.reset();
+
+        if (b0 == 0x1f && b1 == 0x8b) {
+            return new BufferedInputStream(new GZIPInputStream(buffered, BUFFER_SIZE), BUFFER_SIZE);
+        }
+        if (b0 == 'B' && b1 == 'Z' && b2 == 'h') {
+            return new BufferedInputStream(new BZip2CompressorInputStream(buffered, true), BUFFER_SIZE);
+        }
+        return buffered;
+    }
+}
@@ -0,0 +1,389 @@
+package gr.forth.ics.isl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class for detecting the RDF format of a document by inspecting only its first few kilobytes.
+ * Detection is purely syntactic (XML prolog, {@code @prefix}, JSON braces, Thrift framing, ...),
+ * so the parser can be chosen without any trial parsing.
+ */
+public final class FormatSniffer {
+
+    /**
+     * Number of bytes (or characters) inspected at the start of a document.
+     */
+    public static final int HEAD_SIZE = 4096;
+
+    /**
+     * Confidence above which a detection overrides a caller-supplied extension.
+     */
+    public static final double CONFIDENT = 0.9;
+
+    /**
+     * The result of a format detection.
+     */
+    public static final class Detection {
+
+        private final String lang;
+        private final String extension;
+        private final double confidence;
+
+        Detection(String lang, String extension, double confidence) {
+            this.lang = lang;
+            this.extension = extension;
+            this.confidence = confidence;
+        }
+
+        /**
+         * @return the detected RDF format, as used in {@link OntologyReasoner#langs}
+         */
+        public String getLang() {
+            return lang;
+        }
+
+        /**
+         * @return the canonical file extension of the detected format
+         */
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @return the confidence of the detection, between 0 and 1
+         */
+        public double getConfidence() {
+            return confidence;
+        }
+
+        @Override
+        public String toString() {
+            return lang + " (" + confidence + ")";
+        }
+    }
+
+    private FormatSniffer() {
+    }
+
+    /**
+     * Detects the format of a stream without consuming it. The stream must support
+     * {@link InputStream#mark(int)}, as the streams returned by {@link CompressedInput#open(InputStream)} do.
+     *
+     * @param in a markable input stream positioned at the start of the document
+     * @return the detected format, or null if the content is not recognised
+     * @throws IOException if the stream cannot be read
+     */
+    public static Detection detect(InputStream in) throws IOException {
+        if (!in.markSupported()) {
+            throw new IllegalArgumentException("Format detection requires a stream that supports mark/reset");
+        }
+        byte[] head = new byte[HEAD_SIZE];
+        in.mark(HEAD_SIZE);
+        int length = 0;
+        try {
+            int read;
+            while (length < HEAD_SIZE && (read = in.read(head, length, HEAD_SIZE - length)) > 0) {
+                length += read;
+            }
+        } finally {
+            in.reset();
+        }
+        return detect(head, length);
+    }
+
+    /**
+     * Detects the format of a document from its first bytes.
+     *
+     * @param head the first bytes of the document
+     * @param length the number of valid bytes in {@code head}
+     * @return the detected format, or null if the content is not recognised
+     */
+    public static Detection detect(byte[] head, int length) {
+        if (isBinary(head, length)) {
+            // RDF Thrift rows are compact-protocol unions: field 1, 2 or 3 holding a struct
+            int first = head[0] & 0xff;
+            boolean rowHeader = (first & 0x0f) == 0x0c && (first >> 4) >= 1 && (first >> 4) <= 3;
+            return new Detection("RDF Thrift", ".trdf", rowHeader ? 0.9 : 0.5);
+        }
+        return detect(new String(head, 0, length, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Detects the format of a document given as text. Only the first {@link #HEAD_SIZE}
+     * characters are inspected.
+     *
+     * @param content the document, or its beginning
+     * @return the detected format, or null if the content is not recognised
+     */
+    public static Detection detect(CharSequence content) {
+        int end = Math.min(content.length(), HEAD_SIZE);
+        int pos = skipWhitespaceAndComments(content, 0, end);
+        if (pos >= end) {
+            return null;
+        }
+        char c = content.charAt(pos);
+
+        if (c == '<' && pos + 1 < end) {
+            char next = content.charAt(pos + 1);
+            if (next == '?' || next == '!' || Character.isLetter(next) && !looksLikeIriLine(content, pos, end)) {
+                return detectXml(content, pos, end);
+            }
+        }
+        if (c == '{' || c == '[') {
+            return detectJson(content, pos, end);
+        }
+        if (startsWithIgnoreCase(content, pos, end, "@prefix") || startsWithIgnoreCase(content, pos, end, "@base")
+                || startsWithIgnoreCase(content, pos, end, "prefix ") || startsWithIgnoreCase(content, pos, end, "base ")) {
+            return hasGraphBlock(content, pos, end)
+                    ? new Detection("TriG", ".trig", 0.9)
+                    : new Detection("Turtle", ".ttl", 0.95);
+        }
+        if (c == '<' || c == '_') {
+            return detectLineBased(content, pos, end);
+        }
+        if (startsWithIgnoreCase(content, pos, end, "graph")) {
+            return new Detection("TriG", ".trig", 0.8);
+        }
+        if (Character.isLetter(c) || c == ':') {
+            // A prefixed name without declarations: most likely a Turtle fragment
+            return new Detection("Turtle", ".ttl", 0.5);
+        }
+        return null;
+    }
+
+    /**
+     * Chooses the RDF format for a document, combining the caller-supplied extension with a detection.
+     * A confident detection wins over the extension, unless the extension's format is a superset
+     * of the detected one and so parses the document anyway: a Turtle file may open with an
+     * N-Triples statement, or declare more prefixes than fit in the inspected head before its
+     * first TriG graph. Otherwise a supported extension is used, and the detection is only the fallback.
+     *
+     * @param extension the caller-supplied extension, may be null
+     * @param detection the detection result, may be null
+     * @return the RDF format to parse with, or null if neither source identifies one
+     */
+    public static String chooseLang(String extension, Detection detection) {
+        String byExtension = extension == null ? null : OntologyReasoner.langs.get(CompressedInput.formatExtension(extension));
+        if (detection != null && (byExtension == null
+                || detection.getConfidence() >= CONFIDENT && !isSuperset(byExtension, detection.getLang()))) {
+            return detection.getLang();
+        }
+        return byExtension;
+    }
+
+    /**
+     * @return true if every document in the second format is also a valid document in the first
+     */
+    private static boolean isSuperset(String lang, String of) {
+        switch (lang) {
+            case "TriG":
+                return of.equals("Turtle") || of.equals("N-TRIPLES");
+            case "Turtle":
+            case "N-Quads":
+                return of.equals("N-TRIPLES");
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isBinary(byte[] head, int length) {
+        for (int i = 0; i < length; i++) {
+            int b = head[i] & 0xff;
+            if (b < 0x09 || b > 0x0d && b < 0x20) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int skipWhitespaceAndComments(CharSequence s, int pos, int end) {
+        // Skip a UTF-8 byte order mark, whether decoded or seen as raw bytes
+        if (pos < end && s.charAt(pos) == '\uFEFF') {
+            pos++;
+        } else if (startsWithIgnoreCase(s, pos, end, "\u00EF\u00BB\u00BF")) {
+            pos += 3;
+        }
+        while (pos < end) {
+            char c = s.charAt(pos);
+            if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '#') {
+                while (pos < end && s.charAt(pos) != '\n') {
+                    pos++;
+                }
+            } else {
+                break;
+            }
+        }
+        return pos;
+    }
+
+    private static Detection detectXml(CharSequence s, int pos, int end) {
+        if (indexOf(s, "<trix", pos, end, true) >= 0) {
+            return new Detection("TriX", ".trix", 0.95);
+        }
+        if (indexOf(s, "RDF", pos, end, false) >= 0 || indexOf(s, "22-rdf-syntax-ns#", pos, end, false) >= 0) {
+            return new Detection("RDF/XML", ".rdf", 0.95);
+        }
+        return new Detection("RDF/XML", ".rdf", 0.6);
+    }
+
+    private static Detection detectJson(CharSequence s, int pos, int end) {
+        if (indexOf(s, "\"@context\"", pos, end, false) >= 0 || indexOf(s, "\"@id\"", pos, end, false) >= 0
+                || indexOf(s, "\"@graph\"", pos, end, false) >= 0) {
+            return new Detection("JSON-LD", ".jsonld", 0.95);
+        }
+        if (s.charAt(pos) == '{' && indexOf(s, "\"type\"", pos, end, false) >= 0
+                && indexOf(s, "\"value\"", pos, end, false) >= 0) {
+            return new Detection("RDF/JSON", ".rj", 0.8);
+        }
+        return new Detection("JSON-LD", ".jsonld", 0.5);
+    }
+
+    /**
+     * Distinguishes N-Triples, N-Quads and Turtle/TriG by counting the terms of the first statement.
+     */
+    private static Detection detectLineBased(CharSequence s, int pos, int end) {
+        int terms = 0;
+        while (pos < end) {
+            char c = s.charAt(pos);
+            if (c == '<') {
+                int close = indexOf(s, ">", pos, end, false);
+                if (close < 0) {
+                    break;
+                }
+                pos = close + 1;
+                terms++;
+            } else if (c == '_' && pos + 1 < end && s.charAt(pos + 1) == ':') {
+                while (pos < end && !Character.isWhitespace(s.charAt(pos))) {
+                    pos++;
+                }
+                terms++;
+            } else if (c == '"') {
+                pos = skipLiteral(s, pos, end);
+                terms++;
+            } else if (c == ' ' || c == '\t') {
+                pos++;
+            } else if (c == '.') {
+                break;
+            } else if (c == '{') {
+                return new Detection("TriG", ".trig", 0.85);
+            } else {
+                // Prefixed names, ';', ',' or 'a' only occur in Turtle-family syntaxes
+                return hasGraphBlock(s, pos, end)
+                        ? new Detection("TriG", ".trig", 0.7)
+                        : new Detection("Turtle", ".ttl", 0.7);
+            }
+        }
+        if (terms == 3) {
+            return new Detection("N-TRIPLES", ".nt", 0.9);
+        }
+        if (terms == 4) {
+            return new Detection("N-Quads", ".nq", 0.9);
+        }
+        return new Detection("Turtle", ".ttl", 0.4);
+    }
+
+    private static int skipLiteral(CharSequence s, int pos, int end) {
+        pos++;
+        while (pos < end) {
+            char c = s.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+            } else if (c == '"') {
+                pos++;
+                break;
+            } else {
+                pos++;
+            }
+        }
+        // Datatype or language tag
+        if (pos + 1 < end && s.charAt(pos) == '^' && s.charAt(pos + 1) == '^') {
+            int close = indexOf(s, ">", pos, end, false);
+            return close < 0 ? end : close + 1;
+        }
+        while (pos < end && s.charAt(pos) != ' ' && s.charAt(pos) != '\t' && s.charAt(pos) != '.') {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Checks for a TriG graph block, i.e. a '{' outside of IRIs and literals.
+     */
+    private static boolean hasGraphBlock(CharSequence s, int pos, int end) {
+        boolean inIri = false;
+        boolean inLiteral = false;
+        for (int i = pos; i < end; i++) {
+            char c = s.charAt(i);
+            if (inLiteral) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inLiteral = false;
+                }
+            } else if (inIri) {
+                inIri = c != '>';
+            } else if (c == '"') {
+                inLiteral = true;
+            } else if (c == '<') {
+                inIri = true;
+            } else if (c == '#') {
+                while (i < end && s.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '{') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An absolute IRI in angle brackets starts an N-Triples/Turtle statement, not an XML element.
+     */
+    private static boolean looksLikeIriLine(CharSequence s, int pos, int end) {
+        for (int i = pos + 1; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == '>') {
+                return indexOf(s, "://", pos, i, false) >= 0 || startsWithIgnoreCase(s, pos + 1, i, "urn:");
+            }
+            if (Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWithIgnoreCase(CharSequence s, int pos, int end, String prefix) {
+        if (end - pos < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase(s.charAt(pos + i)) != Character.toLowerCase(prefix.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(CharSequence s, String needle, int from, int end, boolean ignoreCase) {
+        int last = end - needle.length();
+        for (int i = from; i <= last; i++) {
+            if (ignoreCase ? startsWithIgnoreCase(s, i, end, needle) : regionMatches(s, i, needle)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(CharSequence s, int pos, String needle) {
+        for (int i = 0; i < needle.length(); i++) {
+            if (s.charAt(pos + i) != needle.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,382 @@
+package gr.forth.ics.isl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.stream.JenaIOEnvironment;
+import org.apache.jena.riot.system.stream.LocationMapper;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.OWL;
+
+/**
+ * Class for resolving the {@code owl:imports} closure of an ontology. Imported documents are
+ * fetched concurrently as soon as the document importing them has been parsed, so the closure
+ * takes about as long as its slowest chain of imports instead of the sum of all fetches.
+ *
+ * <p>Every fetched document is cached as RDF Thrift in a mirror directory, together with a Jena
+ * location-mapping file ({@value #MAPPING_FILE}) from the ontology URIs to the cached copies, so
+ * later resolutions (and Jena's own stream manager, through {@link #getLocationMapper()}) read
+ * imports locally. Import cycles and documents imported more than once are fetched only once
+ * and reported in the {@link Resolution}.</p>
+ */
+public class ImportResolver implements AutoCloseable {
+
+    /**
+     * Name of the location-mapping file in the mirror directory.
+     */
+    public static final String MAPPING_FILE = "location-mapping.ttl";
+
+    private final Path mirror;
+    private final ExecutorService pool;
+    private final LocationMapper mapper;
+
+    /**
+     * The result of resolving an imports closure.
+     */
+    public static final class Resolution {
+
+        private final Map<String, Model> documents;
+        private final List<List<String>> cycles;
+        private final Map<String, Integer> duplicates;
+        private final Map<String, String> failures;
+
+        Resolution(Map<String, Model> documents, List<List<String>> cycles,
+                   Map<String, Integer> duplicates, Map<String, String> failures) {
+            this.documents = Collections.unmodifiableMap(documents);
+            this.cycles = Collections.unmodifiableList(cycles);
+            this.duplicates = Collections.unmodifiableMap(duplicates);
+            this.failures = Collections.unmodifiableMap(failures);
+        }
+
+        /**
+         * @return the imported documents by URI, in depth-first import order
+         */
+        public Map<String, Model> getDocuments() {
+            return documents;
+        }
+
+        /**
+         * @return the import cycles found, each as the list of URIs along the cycle
+         */
+        public List<List<String>> getCycles() {
+            return cycles;
+        }
+
+        /**
+         * @return the documents imported more than once, with the number of times they are imported
+         */
+        public Map<String, Integer> getDuplicates() {
+            return duplicates;
+        }
+
+        /**
+         * @return the imports that could not be fetched, with the reason
+         */
+        public Map<String, String> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Adds every imported document to a model as a sub-model.
+         *
+         * @param model the importing model
+         */
+        public void addTo(OntModel model) {
+            for (Model document : documents.values()) {
+                model.addSubModel(document, false);
+            }
+            model.rebind();
+        }
+    }
+
+    /**
+     * Constructs an ImportResolver.
+     *
+     * @param mirror  the directory imported documents are cached in, created if missing
+     * @param threads the number of documents fetched concurrently
+     * @throws IOException if the mirror directory cannot be created or its mapping file cannot be read
+     */
+    public ImportResolver(Path mirror, int threads) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive: " + threads);
+        }
+        this.mirror = Files.createDirectories(mirror);
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "import-resolver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Path mapping = mirror.resolve(MAPPING_FILE);
+        if (Files.exists(mapping)) {
+            Model config = ModelFactory.createDefaultModel();
+            RDFDataMgr.read(config, mapping.toString(), Lang.TURTLE);
+            this.mapper = JenaIOEnvironment.processConfig(config);
+        } else {
+            this.mapper = new LocationMapper();
+        }
+    }
+
+    /**
+     * @return a location mapper from ontology URIs to their cached copies in the mirror
+     */
+    public LocationMapper getLocationMapper() {
+        synchronized (mapper) {
+            return mapper.clone();
+        }
+    }
+
+    /**
+     * Resolves the imports closure of an ontology document.
+     *
+     * @param url the URL of the ontology
+     * @return the resolved closure, including the ontology itself
+     */
+    public Resolution resolve(String url) {
+        return resolve(Collections.singletonMap(url, null));
+    }
+
+    /**
+     * Resolves the imports closure of an already loaded ontology. The ontology itself
+     * is not part of the returned documents.
+     *
+     * @param model the loaded ontology
+     * @param url   the URL the ontology was loaded from, used to recognise imports of itself
+     * @return the resolved closure of its imports
+     */
+    public Resolution resolve(Model model, String url) {
+        Map<String, Model> roots = new LinkedHashMap<>();
+        roots.put(url, model);
+        return resolve(roots);
+    }
+
+    private Resolution resolve(Map<String, Model> roots) {
+        Fetch fetch = new Fetch();
+        fetch.phaser.register();
+        for (Map.Entry<String, Model> root : roots.entrySet()) {
+            if (root.getValue() == null) {
+                fetch.schedule(null, root.getKey());
+            } else {
+                fetch.requested.add(root.getKey());
+                fetch.loaded(root.getKey(), root.getValue());
+            }
+        }
+        fetch.phaser.arriveAndAwaitAdvance();
+        saveMapping();
+
+        // Walk the imports graph from the roots to order the documents and find cycles
+        Map<String, Model> documents = new LinkedHashMap<>();
+        List<List<String>> cycles = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        for (String root : roots.keySet()) {
+            walk(root, fetch, new ArrayList<>(), visited, documents, cycles);
+        }
+        for (String root : roots.keySet()) {
+            if (roots.get(root) != null) {
+                documents.remove(root);
+            }
+        }
+        Map<String, Integer> duplicates = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : new TreeMap<>(fetch.references).entrySet()) {
+            if (entry.getValue() > 1) {
+                duplicates.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return new Resolution(documents, cycles, duplicates, new LinkedHashMap<>(fetch.failures));
+    }
+
+    private static void walk(String uri, Fetch fetch, List<String> path, Set<String> visited,
+                             Map<String, Model> documents, List<List<String>> cycles) {
+        int onPath = path.indexOf(uri);
+        if (onPath >= 0) {
+            List<String> cycle = new ArrayList<>(path.subList(onPath, path.size()));
+            cycle.add(uri);
+            cycles.add(cycle);
+            return;
+        }
+        if (!visited.add(uri)) {
+            return;
+        }
+        Model document = fetch.documents.get(uri);
+        if (document != null) {
+            documents.put(uri, document);
+        }
+        path.add(uri);
+        for (String imported : fetch.imports.getOrDefault(uri, Collections.emptyList())) {
+            walk(imported, fetch, path, visited, documents, cycles);
+        }
+        path.remove(path.size() - 1);
+    }
+
+    /**
+     * The state of a single resolution, shared by the fetching threads.
+     */
+    private final class Fetch {
+
+        final Phaser phaser = new Phaser();
+        final Set<String> requested = ConcurrentHashMap.newKeySet();
+        final Map<String, Model> documents = new ConcurrentHashMap<>();
+        final Map<String, List<String>> imports = new ConcurrentHashMap<>();
+        final Map<String, Integer> references = new ConcurrentHashMap<>();
+        final Map<String, String> failures = new ConcurrentHashMap<>();
+
+        void schedule(String importer, String uri) {
+            if (importer != null) {
+                references.merge(uri, 1, Integer::sum);
+            }
+            if (!requested.add(uri)) {
+                return;
+            }
+            phaser.register();
+            pool.execute(() -> {
+                try {
+                    loaded(uri, load(uri));
+                } catch (RuntimeException e) {
+                    failures.put(uri, e.getClass().getSimpleName() + ": " + e.getMessage());
+                } finally {
+                    phaser.arriveAndDeregister();
+                }
+            });
+        }
+
+        void loaded(String uri, Model document) {
+            documents.put(uri, document);
+            List<String> found = importsOf(document.getGraph());
+            imports.put(uri, found);
+            for (String imported : found) {
+                schedule(uri, imported);
+            }
+        }
+    }
+
+    private static List<String> importsOf(Graph graph) {
+        List<String> found = new ArrayList<>();
+        ExtendedIterator<Triple> it = graph.find(Node.ANY, OWL.imports.asNode(), Node.ANY);
+        try {
+            while (it.hasNext()) {
+                Node object = it.next().getObject();
+                if (object.isURI() && !found.contains(object.getURI())) {
+                    found.add(object.getURI());
+                }
+            }
+        } finally {
+            it.close();
+        }
+        // Graph order is arbitrary; sorting keeps the resolved order stable
+        Collections.sort(found);
+        return found;
+    }
+
+    /**
+     * Loads a document from the mirror, or fetches and mirrors it.
+     */
+    private Model load(String uri) {
+        Model document = ModelFactory.createDefaultModel();
+        String cached;
+        synchronized (mapper) {
+            cached = mapper.getAltEntry(uri);
+        }
+        if (cached != null) {
+            Path file = Paths.get(URI.create(cached));
+            if (Files.isRegularFile(file)) {
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                    RDFDataMgr.read(document, in, Lang.RDFTHRIFT);
+                    return document;
+                } catch (IOException e) {
+                    // Fall through and fetch the document again
+                    document.removeAll();
+                }
+            }
+        }
+        OntologyReasoner.readUrl(document, uri, CompressedInput.formatExtension(uri));
+        store(uri, document);
+        return document;
+    }
+
+    private void store(String uri, Model document) {
+        Path file = mirror.resolve(fileName(uri));
+        try {
+            // Write to a temporary file first so readers never see a partial copy
+            Path tmp = Files.createTempFile(mirror, "import", ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                RDFDataMgr.write(out, document, Lang.RDFTHRIFT);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (mapper) {
+            mapper.addAltEntry(uri, file.toUri().toString());
+        }
+    }
+
+    private void saveMapping() {
+        Model config;
+        synchronized (mapper) {
+            Iterator<String> entries = mapper.listAltEntries();
+            if (!entries.hasNext()) {
+                return;
+            }
+            config = mapper.toModel();
+        }
+        config.setNsPrefix("lm", "http://jena.hpl.hp.com/2004/08/location-mapping#");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(mirror.resolve(MAPPING_FILE)))) {
+            RDFDataMgr.write(out, config, Lang.TURTLE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Names the cached copy of a document after a digest of its URI, which is stable and file-system safe.
+     */
+    static String fileName(String uri) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(uri.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(48);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return name.append(".trdf").toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,356 @@
+package gr.forth.ics.isl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Class for scheduling ontology loads coming from user traffic. Jobs are queued per priority
+ * class and per tenant; interactive jobs are always dispatched before bulk jobs, and within a
+ * class the tenants with waiting jobs take turns, so one tenant uploading many documents does
+ * not delay the others.
+ *
+ * <p>At most {@code threads} jobs run at once, and the weights of the running jobs may not add
+ * up to more than {@code capacity}. The weight of a load is the size of its input in bytes,
+ * capped at the capacity so that an oversized input still runs, alone. When the next job does
+ * not fit, dispatching waits for running jobs to finish instead of skipping it, so large jobs
+ * are not starved by a stream of small ones.</p>
+ */
+public class IngestionScheduler implements AutoCloseable {
+
+    /**
+     * The priority classes of jobs.
+     */
+    public enum Priority {
+        /**
+         * Loads a user is waiting for; dispatched before any bulk job.
+         */
+        INTERACTIVE,
+        /**
+         * Background loads such as batch uploads.
+         */
+        BULK
+    }
+
+    /**
+     * A snapshot of the queue metrics of one priority class.
+     */
+    public static final class Stats {
+
+        private final int queueDepth;
+        private final int running;
+        private final long completed;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+
+        Stats(int queueDepth, int running, long completed, long totalWaitNanos, long maxWaitNanos) {
+            this.queueDepth = queueDepth;
+            this.running = running;
+            this.completed = completed;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        /**
+         * @return the number of jobs waiting to run
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * @return the number of jobs running
+         */
+        public int getRunning() {
+            return running;
+        }
+
+        /**
+         * @return the number of jobs that started running, including those still running
+         */
+        public long getStarted() {
+            return completed + running;
+        }
+
+        /**
+         * @return the number of jobs that finished, successfully or not
+         */
+        public long getCompleted() {
+            return completed;
+        }
+
+        /**
+         * @return the mean time started jobs waited in the queue, in milliseconds
+         */
+        public double getAverageWaitMillis() {
+            long started = getStarted();
+            return started == 0 ? 0 : totalWaitNanos / 1e6 / started;
+        }
+
+        /**
+         * @return the longest time a started job waited in the queue, in milliseconds
+         */
+        public double getMaxWaitMillis() {
+            return maxWaitNanos / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("queued=%d running=%d completed=%d avgWait=%.1fms maxWait=%.1fms",
+                    queueDepth, running, completed, getAverageWaitMillis(), getMaxWaitMillis());
+        }
+    }
+
+    /**
+     * A queued job. Its permits are released before its result is published, so callers
+     * see up to date metrics, and also when it was cancelled before it could start.
+     */
+    private final class Job<T> extends FutureTask<T> {
+
+        final Priority priority;
+        final long weight;
+        final long enqueued = System.nanoTime();
+        private final AtomicBoolean released;
+
+        Job(Priority priority, long weight, Callable<T> callable) {
+            this(priority, weight, callable, new AtomicBoolean());
+        }
+
+        private Job(Priority priority, long weight, Callable<T> callable, AtomicBoolean released) {
+            super(() -> {
+                try {
+                    return callable.call();
+                } finally {
+                    finished(priority, weight, released);
+                }
+            });
+            this.priority = priority;
+            this.weight = weight;
+            this.released = released;
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                finished(priority, weight, released);
+            }
+        }
+    }
+
+    /**
+     * The queues and counters of one priority class.
+     */
+    private static final class PriorityClass {
+
+        /**
+         * The waiting jobs per tenant, in the order the tenants take turns.
+         */
+        final LinkedHashMap<String, ArrayDeque<Job<?>>> tenants = new LinkedHashMap<>();
+        int queued;
+        int running;
+        long completed;
+        long totalWaitNanos;
+        long maxWaitNanos;
+    }
+
+    private final int threads;
+    private final long capacity;
+    private final ExecutorService pool;
+    private final EnumMap<Priority, PriorityClass> classes = new EnumMap<>(Priority.class);
+
+    private int running;
+    private long runningWeight;
+    private boolean closed;
+
+    /**
+     * Constructs an IngestionScheduler.
+     *
+     * @param threads  the maximum number of jobs running at once
+     * @param capacity the maximum total weight of the running jobs, in input bytes
+     */
+    public IngestionScheduler(int threads, long capacity) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive: " + threads);
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        }
+        this.threads = threads;
+        this.capacity = capacity;
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "ingestion");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Priority priority : Priority.values()) {
+            classes.put(priority, new PriorityClass());
+        }
+    }
+
+    /**
+     * Queues a call to {@link OntologyReasoner#initiateModelFileContent(String, String)},
+     * weighted by the UTF-8 size of the content.
+     *
+     * @param tenant      the tenant the load is accounted to
+     * @param priority    the priority class of the load
+     * @param reasoner    the reasoner to load with
+     * @param fileContent the content of the ontology file
+     * @param extension   the file extension of the ontology
+     * @return the future result of the load
+     */
+    public Future<Boolean> submitFileContent(String tenant, Priority priority, OntologyReasoner reasoner,
+                                             String fileContent, String extension) {
+        long weight = fileContent.getBytes(StandardCharsets.UTF_8).length;
+        return submit(tenant, priority, weight, () -> reasoner.initiateModelFileContent(fileContent, extension));
+    }
+
+    /**
+     * Queues a call to {@link OntologyReasoner#initiateModelUrl(String, String)}. The size of
+     * a remote document is not known before it is fetched, so the caller supplies an estimate,
+     * for example the Content-Length of the upload or of a previous fetch.
+     *
+     * @param tenant        the tenant the load is accounted to
+     * @param priority      the priority class of the load
+     * @param reasoner      the reasoner to load with
+     * @param url           the URL of the ontology file
+     * @param extension     the file extension of the ontology
+     * @param expectedBytes the expected size of the document
+     * @return the future result of the load
+     */
+    public Future<Boolean> submitUrl(String tenant, Priority priority, OntologyReasoner reasoner,
+                                     String url, String extension, long expectedBytes) {
+        return submit(tenant, priority, expectedBytes, () -> reasoner.initiateModelUrl(url, extension));
+    }
+
+    /**
+     * Queues a job.
+     *
+     * @param tenant   the tenant the job is accounted to
+     * @param priority the priority class of the job
+     * @param weight   the weight of the job, usually its input size in bytes
+     * @param job      the job
+     * @param <T>      the type of the result
+     * @return the future result of the job
+     * @throws RejectedExecutionException if the scheduler is closed
+     */
+    public <T> Future<T> submit(String tenant, Priority priority, long weight, Callable<T> job) {
+        Job<T> queued = new Job<>(priority, Math.max(1, Math.min(weight, capacity)), job);
+        synchronized (this) {
+            if (closed) {
+                throw new RejectedExecutionException("The scheduler is closed");
+            }
+            PriorityClass queue = classes.get(priority);
+            queue.tenants.computeIfAbsent(tenant, t -> new ArrayDeque<>()).add(queued);
+            queue.queued++;
+            dispatch();
+        }
+        return queued;
+    }
+
+    /**
+     * @param priority the priority class
+     * @return a snapshot of the queue metrics of the class
+     */
+    public synchronized Stats getStats(Priority priority) {
+        PriorityClass queue = classes.get(priority);
+        return new Stats(queue.queued, queue.running, queue.completed, queue.totalWaitNanos, queue.maxWaitNanos);
+    }
+
+    /**
+     * @return the total weight of the running jobs
+     */
+    public synchronized long getRunningWeight() {
+        return runningWeight;
+    }
+
+    /**
+     * Starts waiting jobs while they fit, highest priority first and tenants in turn.
+     */
+    private void dispatch() {
+        for (PriorityClass queue : classes.values()) {
+            while (queue.queued > 0) {
+                if (running >= threads) {
+                    return;
+                }
+                Iterator<Map.Entry<String, ArrayDeque<Job<?>>>> it = queue.tenants.entrySet().iterator();
+                Map.Entry<String, ArrayDeque<Job<?>>> next = it.next();
+                Job<?> job = next.getValue().peek();
+                if (job.isCancelled()) {
+                    take(queue, it, next);
+                    continue;
+                }
+                if (runningWeight + job.weight > capacity) {
+                    return;
+                }
+                take(queue, it, next);
+                long waited = System.nanoTime() - job.enqueued;
+                queue.totalWaitNanos += waited;
+                queue.maxWaitNanos = Math.max(queue.maxWaitNanos, waited);
+                queue.running++;
+                running++;
+                runningWeight += job.weight;
+                pool.execute(job);
+            }
+        }
+    }
+
+    /**
+     * Removes the head job of the first tenant and moves the tenant to the back of the turn order.
+     */
+    private static void take(PriorityClass queue, Iterator<Map.Entry<String, ArrayDeque<Job<?>>>> it,
+                             Map.Entry<String, ArrayDeque<Job<?>>> next) {
+        ArrayDeque<Job<?>> jobs = next.getValue();
+        jobs.poll();
+        queue.queued--;
+        it.remove();
+        if (!jobs.isEmpty()) {
+            queue.tenants.put(next.getKey(), jobs);
+        }
+    }
+
+    private synchronized void finished(Priority priority, long weight, AtomicBoolean released) {
+        if (!released.compareAndSet(false, true)) {
+            return;
+        }
+        PriorityClass queue = classes.get(priority);
+        queue.running--;
+        queue.completed++;
+        running--;
+        runningWeight -= weight;
+        if (!closed) {
+            dispatch();
+        }
+    }
+
+    /**
+     * Cancels the waiting jobs and stops accepting new ones. Running jobs complete.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            for (PriorityClass queue : classes.values()) {
+                for (ArrayDeque<Job<?>> jobs : queue.tenants.values()) {
+                    for (Job<?> job : jobs) {
+                        job.cancel(false);
+                    }
+                }
+                queue.tenants.clear();
+                queue.queued = 0;
+            }
+        }
+        pool.shutdown();
+    }
+}
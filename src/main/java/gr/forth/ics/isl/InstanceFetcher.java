@@ -1,29 +1,47 @@
 package gr.forth.ics.isl;
 
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.time.Duration;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.jena.ext.com.google.common.collect.ArrayListMultimap;
 import org.apache.jena.ext.com.google.common.collect.Multimap;
-import org.apache.jena.ontology.Individual;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.ontology.OntModel;
 import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryExecution;
 import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.query.QueryFactory;
 import org.apache.jena.query.QuerySolution;
 import org.apache.jena.query.ResultSet;
+import org.apache.jena.rdf.listeners.StatementListener;
+import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
-import org.apache.jena.rdf.model.Property;
-import org.apache.jena.rdf.model.Resource;
-import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.riot.RDFParser;
 import org.apache.jena.util.iterator.ExtendedIterator;
 import org.apache.jena.vocabulary.RDF;
 import org.slf4j.Logger;
@@ -31,14 +49,51 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Class for fetching instances and their associated classes from an ontology model.
+ *
+ * <p>Fetchers loaded under a {@link MemoryBudget} may hold an on-disk store, which
+ * {@link #close()} releases.</p>
  */
-public class InstanceFetcher {
+public class InstanceFetcher implements AutoCloseable {
 
     /**
      * Ontology model used for reading and manipulating RDF data.
      */
     private OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
 
+    /**
+     * The budgeted load the model was read with, if any.
+     */
+    private MemoryBudget.Load load;
+
+    /**
+     * Materialized rdf:type closure used to answer subclass-aware instance lookups, if any.
+     */
+    private volatile TypeClosure typeClosure;
+
+    /**
+     * Schema the type closure was materialized with, used for subclass-aware index queries.
+     */
+    private Model schema;
+
+    /**
+     * Index of the instances of every class; null when it has to be rebuilt after a change.
+     */
+    private volatile TypeIndex typeIndex;
+
+    /**
+     * Query selecting the distinct classes of the typed resources, parsed once.
+     */
+    private static final Query CLASS_QUERY = QueryFactory.create("SELECT DISTINCT ?class "
+            + "WHERE { "
+            + "?subject <" + RDF.type + "> ?class "
+            + "}");
+
+    /**
+     * Cache of the results of the listing methods, dropped whenever the model changes; null
+     * until enabled with {@link #setCache(int, Duration)}.
+     */
+    private volatile QueryCache<String, Collection<?>> cache;
+
     /**
      * Logger for logging messages and errors.
      */
@@ -48,15 +103,189 @@ public class InstanceFetcher {
      * Constructs an InstanceFetcher and initializes the ontology model with the given file contents and extension.
      *
      * @param fileContents the contents of the ontology file as a string
-     * @param extension    the file extension indicating the RDF format
-     * @throws IllegalArgumentException if the given file extension is not supported
+     * @param extension    the file extension indicating the RDF format, used when the format
+     *                     cannot be detected from the contents with confidence
+     * @throws IllegalArgumentException if the format can be determined neither from the contents nor the extension
      */
     public InstanceFetcher(String fileContents, String extension) {
-        if (!OntologyReasoner.langs.keySet().contains(extension.toLowerCase())) {
-            throw new IllegalArgumentException("The given file extension (" + extension + ") is not supported. "
-                    + "The list of accepted file extensions is " + OntologyReasoner.langs.keySet());
+        String lang = OntologyReasoner.resolveLang(extension, FormatSniffer.detect(fileContents));
+        UriInterner.read(model, RDFParser.fromString(fileContents), lang, null);
+        indexTypes();
+    }
+
+    /**
+     * Constructs an InstanceFetcher over an already loaded ontology model.
+     *
+     * @param model the ontology model holding the instances
+     */
+    public InstanceFetcher(OntModel model) {
+        this.model = model;
+        indexTypes();
+    }
+
+    /**
+     * Constructs an InstanceFetcher and initializes the ontology model from the given stream.
+     * Gzip and bzip2 compressed content is detected from its magic bytes and decompressed while parsing.
+     *
+     * @param in        the stream with the (possibly compressed) ontology content
+     * @param extension the file extension indicating the RDF format, optionally followed by a compression suffix
+     * @throws IllegalArgumentException if the format can be determined neither from the content nor the extension
+     * @throws IOException if the stream cannot be read
+     */
+    public InstanceFetcher(InputStream in, String extension) throws IOException {
+        read(in, extension);
+        indexTypes();
+    }
+
+    /**
+     * Constructs an InstanceFetcher and initializes the ontology model from the given stream
+     * under a memory budget. Depending on the budget's policy, input exceeding it is rejected
+     * or spilled to an on-disk store in the budget's spill directory.
+     *
+     * @param in        the stream with the (possibly compressed) ontology content
+     * @param extension the file extension indicating the RDF format, optionally followed by a compression suffix
+     * @param budget    the memory budget of the load
+     * @throws MemoryBudgetExceededException if the input exceeds the budget and the budget rejects it
+     * @throws IOException if the stream cannot be read
+     */
+    public InstanceFetcher(InputStream in, String extension, MemoryBudget budget) throws IOException {
+        InputStream content = CompressedInput.open(in);
+        String lang = OntologyReasoner.resolveLang(extension, FormatSniffer.detect(content));
+        load = budget.load(content, lang, null);
+        model = load.asOntModel(OntModelSpec.OWL_MEM);
+        indexTypes();
+    }
+
+    /**
+     * Releases the on-disk store of a model spilled under a memory budget and deletes its
+     * files; the fetcher must not be used afterwards. Does nothing for in-memory models.
+     */
+    @Override
+    public void close() {
+        if (load != null) {
+            load.close();
+            load = null;
+        }
+    }
+
+    /**
+     * Constructs an InstanceFetcher and initializes the ontology model from the given file.
+     * The format is taken from the file extension, e.g. {@code instances.ttl.gz} is read as
+     * gzip compressed Turtle without being unpacked first.
+     *
+     * @param file the ontology file
+     * @throws IllegalArgumentException if the format can be determined neither from the content nor the file extension
+     * @throws IOException if the file cannot be read
+     */
+    public InstanceFetcher(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            read(in, file.getName());
+        }
+        indexTypes();
+    }
+
+    /**
+     * Reads a possibly compressed stream into the ontology model.
+     *
+     * @param in        the stream with the ontology content
+     * @param extension the file name or extension indicating the RDF format
+     * @throws IOException if the stream cannot be read
+     */
+    private void read(InputStream in, String extension) throws IOException {
+        InputStream content = CompressedInput.open(in);
+        String lang = OntologyReasoner.resolveLang(extension, FormatSniffer.detect(content));
+        UriInterner.read(model, RDFParser.source(content), lang, null);
+    }
+
+    /**
+     * Builds the type index over the loaded data and keeps it and the result cache in step with
+     * later changes to the model: any change drops the cached results, and any added or removed
+     * rdf:type statement causes an index rebuild and a new type closure on the next access.
+     * Data spilled to disk is only indexed on first use, as the index is held on the heap.
+     */
+    private void indexTypes() {
+        if (load == null || !load.isSpilled()) {
+            typeIndex = TypeIndex.build(model.getGraph());
+        }
+        model.register(new StatementListener() {
+            @Override
+            public void addedStatement(Statement s) {
+                invalidate(s);
+            }
+
+            @Override
+            public void removedStatement(Statement s) {
+                invalidate(s);
+            }
+
+            private void invalidate(Statement s) {
+                invalidateCache();
+                if (RDF.type.equals(s.getPredicate())) {
+                    typeIndex = null;
+                    typeClosure = null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the index of the instances of every class, for counts, existence checks and
+     * set operations across classes without graph scans. If a type closure has been materialized,
+     * the index also answers queries including subclasses.
+     *
+     * @return the type index of the loaded data
+     */
+    public TypeIndex getTypeIndex() {
+        TypeIndex index = typeIndex;
+        if (index == null) {
+            index = TypeIndex.build(model.getGraph());
+            if (schema != null) {
+                index.setSchema(schema.getGraph());
+            }
+            typeIndex = index;
         }
-        model.read(new StringReader(fileContents), null, OntologyReasoner.langs.get(extension.toLowerCase()));
+        return index;
+    }
+
+    /**
+     * Returns the dictionary encoding the IDs returned by {@link #getClassIds(IntList)} and
+     * {@link #getInstanceIds(int)}. IDs are only valid until the loaded data changes.
+     *
+     * @return the term dictionary of the current type index
+     */
+    public TermDictionary getDictionary() {
+        return getTypeIndex().getDictionary();
+    }
+
+    /**
+     * Retrieves the IDs of all classes having instances, without allocating URI strings.
+     *
+     * @param target the list the IDs are appended to, e.g. a reused buffer
+     * @return the given list
+     */
+    public IntList getClassIds(IntList target) {
+        return getTypeIndex().classIds(target);
+    }
+
+    /**
+     * Retrieves the IDs of the instances of a class, without allocating URI strings or pairs.
+     * Labels can be fetched for the instances that are actually needed with {@link #getLabel(int)}.
+     *
+     * @param classId the dictionary ID of the class
+     * @return the instance IDs in ascending order
+     */
+    public PostingList getInstanceIds(int classId) {
+        return getTypeIndex().instances(classId);
+    }
+
+    /**
+     * Retrieves the rdfs:label of a resource given by its dictionary ID.
+     *
+     * @param id the dictionary ID of the resource
+     * @return the label, or an empty string if the resource has none
+     */
+    public String getLabel(int id) {
+        return Labels.label(model.getGraph(), getDictionary().node(id));
     }
 
     /**
@@ -65,18 +294,72 @@ public class InstanceFetcher {
      * @return a collection of class URIs
      */
     public Collection<String> getClassUris() {
-        Set<String> retCollection = new HashSet<>();
-        String selectQuery = "SELECT DISTINCT ?class "
-                + "WHERE { "
-                + "?subject <" + RDF.type + "> ?class "
-                + "}";
-        QueryExecution qe = QueryExecutionFactory.create(selectQuery, this.model);
-        ResultSet results = qe.execSelect();
-        while (results.hasNext()) {
-            QuerySolution result = results.next();
-            retCollection.add(result.get("class").toString());
+        return cached("classes", () -> {
+            Set<String> retCollection = new HashSet<>();
+            try (QueryExecution qe = QueryExecutionFactory.create(CLASS_QUERY, this.model)) {
+                ResultSet results = qe.execSelect();
+                while (results.hasNext()) {
+                    QuerySolution result = results.next();
+                    retCollection.add(result.get("class").toString());
+                }
+            }
+            return retCollection;
+        });
+    }
+
+    /**
+     * Returns a listing result, from the cache if one is enabled. Cached results are shared
+     * between callers and therefore wrapped as unmodifiable; without a cache every caller
+     * gets a collection of its own.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Collection<T> cached(String key, Supplier<Collection<T>> compute) {
+        QueryCache<String, Collection<?>> current = cache;
+        if (current == null) {
+            return compute.get();
+        }
+        return (Collection<T>) current.get(key, () -> unmodifiable(compute.get()));
+    }
+
+    private static <T> Collection<T> unmodifiable(Collection<T> collection) {
+        if (collection instanceof Set) {
+            return Collections.unmodifiableSet((Set<T>) collection);
         }
-        return retCollection;
+        return Collections.unmodifiableList((List<T>) collection);
+    }
+
+    private void invalidateCache() {
+        QueryCache<String, Collection<?>> current = cache;
+        if (current != null) {
+            current.invalidate();
+        }
+    }
+
+    /**
+     * Enables or replaces the result cache of the listing methods. Caching is off by default.
+     * While it is on, repeated calls return the same unmodifiable collections instead of
+     * a new modifiable collection per call.
+     *
+     * @param maxEntries the maximum number of cached results
+     * @param ttl how long a cached result stays valid
+     */
+    public void setCache(int maxEntries, Duration ttl) {
+        cache = new QueryCache<>(maxEntries, ttl);
+    }
+
+    /**
+     * Disables the result cache of the listing methods.
+     */
+    public void disableCache() {
+        cache = null;
+    }
+
+    /**
+     * @return the hit and eviction statistics of the result cache, or null if caching is off
+     */
+    public QueryCache.Stats getCacheStats() {
+        QueryCache<String, Collection<?>> current = cache;
+        return current == null ? null : current.getStats();
     }
 
     /**
@@ -86,23 +369,182 @@ public class InstanceFetcher {
      * @return a collection of pairs containing instance URIs and their labels
      */
     public Collection<Pair<String, String>> getInstanceUris(String classUri) {
-        Collection<Pair<String, String>> instancesWithLabels = new ArrayList<>();
-        Resource classResource = model.createResource(classUri);
-        Property rdfType = ResourceFactory.createProperty("http://www.w3.org/1999/02/22-rdf-syntax-ns#type");
-        Property rdfsLabel = ResourceFactory.createProperty("http://www.w3.org/2000/01/rdf-schema#label");
-        ExtendedIterator<Individual> individuals = model.listIndividuals(classResource);
-        while (individuals.hasNext()) {
-            Individual individual = individuals.next();
-            String instanceUri = individual.getURI();
-            String label = "";
-            if (individual.hasProperty(rdfsLabel)) {
-                label = individual.getProperty(rdfsLabel).getString();
+        return cached("instances " + classUri, () -> listInstanceUris(classUri));
+    }
+
+    /**
+     * Retrieves the instance URIs and labels of several classes at once, splitting the classes
+     * over the common fork-join pool.
+     *
+     * @param classUris the URIs of the classes
+     * @return the instances of every distinct class, keyed by class URI in the given order
+     * @see #getInstanceUris(Collection, ForkJoinPool)
+     */
+    public Map<String, Collection<Pair<String, String>>> getInstanceUris(Collection<String> classUris) {
+        return getInstanceUris(classUris, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Retrieves the instance URIs and labels of several classes at once, splitting the classes
+     * over the given fork-join pool. Each class is answered exactly as by {@link #getInstanceUris(String)}
+     * and shares its cache entries when caching is on; the workers only read the underlying graph, so the model
+     * must not be changed while the call runs.
+     *
+     * @param classUris the URIs of the classes
+     * @param pool      the pool running the lookups
+     * @return the instances of every distinct class, keyed by class URI in the given order
+     */
+    public Map<String, Collection<Pair<String, String>>> getInstanceUris(Collection<String> classUris, ForkJoinPool pool) {
+        String[] classes = new LinkedHashSet<>(classUris).toArray(new String[0]);
+        // Each task sets its own slots, so the list is never resized while the tasks run
+        List<Collection<Pair<String, String>>> instances = new ArrayList<>(Collections.nCopies(classes.length, null));
+        pool.invoke(new InstanceTask(classes, instances, 0, classes.length));
+        Map<String, Collection<Pair<String, String>>> result = new LinkedHashMap<>();
+        for (int i = 0; i < classes.length; i++) {
+            result.put(classes[i], instances.get(i));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Looks up the instances of a range of classes, halving the range until single classes remain.
+     */
+    private final class InstanceTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] classes;
+        private final List<Collection<Pair<String, String>>> instances;
+        private final int from;
+        private final int to;
+
+        InstanceTask(String[] classes, List<Collection<Pair<String, String>>> instances, int from, int to) {
+            this.classes = classes;
+            this.instances = instances;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int i = from; i < to; i++) {
+                    instances.set(i, getInstanceUris(classes[i]));
+                }
+                return;
             }
-            instancesWithLabels.add(new ImmutablePair<>(instanceUri, label));
+            int middle = (from + to) >>> 1;
+            invokeAll(new InstanceTask(classes, instances, from, middle),
+                    new InstanceTask(classes, instances, middle, to));
+        }
+    }
+
+    /**
+     * Lists the subjects typed with a class and their labels straight from the graph, which
+     * unlike the ontology model's resource views is safe to read from several threads.
+     */
+    private List<Pair<String, String>> listInstanceUris(String classUri) {
+        List<Pair<String, String>> instancesWithLabels = new ArrayList<>();
+        Graph graph = model.getGraph();
+        ExtendedIterator<Triple> typed = graph.find(Node.ANY, RDF.type.asNode(), NodeFactory.createURI(classUri));
+        try {
+            Set<Node> seen = new HashSet<>();
+            while (typed.hasNext()) {
+                Node instance = typed.next().getSubject();
+                if (seen.add(instance)) {
+                    instancesWithLabels.add(new ImmutablePair<>(instance.isURI() ? instance.getURI() : null,
+                            Labels.label(graph, instance)));
+                }
+            }
+        } finally {
+            typed.close();
         }
         return instancesWithLabels;
     }
 
+    /**
+     * Retrieves all instance URIs and their labels for a given class URI, optionally including the
+     * instances of its subclasses. Subclass instances are read from the materialized type closure,
+     * so no inference happens at query time. When rdf:type statements have changed since then, a
+     * closure materialized with {@link #materializeTypeClosure(Model)} is computed again on the next
+     * call, while one set with {@link #setTypeClosure(TypeClosure)} is dropped and has to be set again.
+     *
+     * @param classUri the URI of the class
+     * @param includeSubclasses whether to include instances of the subclasses of the class
+     * @return a collection of pairs containing instance URIs and their labels
+     * @throws IllegalStateException if subclasses are requested but no current type closure is available
+     */
+    public Collection<Pair<String, String>> getInstanceUris(String classUri, boolean includeSubclasses) {
+        if (!includeSubclasses) {
+            return getInstanceUris(classUri);
+        }
+        TypeClosure closure = currentTypeClosure();
+        return cached("instances+subclasses " + classUri, () -> {
+            List<Pair<String, String>> instancesWithLabels = new ArrayList<>();
+            Node cls = NodeFactory.createURI(classUri);
+            collectInstances(model.getGraph(), cls, instancesWithLabels);
+            collectInstances(closure.getInferred().getGraph(), cls, instancesWithLabels);
+            return instancesWithLabels;
+        });
+    }
+
+    /**
+     * Returns the type closure of the current data, materializing it again if rdf:type
+     * statements changed after it was materialized.
+     */
+    private TypeClosure currentTypeClosure() {
+        TypeClosure closure = typeClosure;
+        if (closure == null && schema != null) {
+            closure = TypeClosure.materialize(schema, model);
+            typeClosure = closure;
+        }
+        if (closure == null) {
+            throw new IllegalStateException("No type closure has been materialized for this model");
+        }
+        return closure;
+    }
+
+    /**
+     * Adds the subjects typed with a class in a graph, labelled from the loaded data.
+     */
+    private void collectInstances(Graph source, Node cls, Collection<Pair<String, String>> target) {
+        ExtendedIterator<Triple> typed = source.find(Node.ANY, RDF.type.asNode(), cls);
+        try {
+            while (typed.hasNext()) {
+                Node instance = typed.next().getSubject();
+                target.add(new ImmutablePair<>(instance.isURI() ? instance.getURI() : null,
+                        Labels.label(model.getGraph(), instance)));
+            }
+        } finally {
+            typed.close();
+        }
+    }
+
+    /**
+     * Computes the rdf:type closure of the loaded instances with respect to the given schema
+     * and uses it for subclass-aware lookups.
+     *
+     * @param schema the model holding the class hierarchy
+     * @return the materialized closure, e.g. for persisting it next to the instance data
+     */
+    public TypeClosure materializeTypeClosure(Model schema) {
+        this.schema = schema;
+        this.typeClosure = TypeClosure.materialize(schema, model);
+        invalidateCache();
+        getTypeIndex().setSchema(schema.getGraph());
+        return typeClosure;
+    }
+
+    /**
+     * Sets a previously materialized rdf:type closure, e.g. one loaded with {@link TypeClosure#load(File)}.
+     *
+     * @param typeClosure the closure matching the loaded instance data
+     */
+    public void setTypeClosure(TypeClosure typeClosure) {
+        this.typeClosure = typeClosure;
+        invalidateCache();
+    }
+
     /**
      * Retrieves all classes and their instances along with the instance labels.
      *
@@ -118,6 +560,31 @@ public class InstanceFetcher {
         return classAndInstances;
     }
 
+    /**
+     * Writes the class / instance / label records of the model to a stream without
+     * materializing them first, unlike {@link #getClassAndInstanceUris()}.
+     *
+     * @param out the stream to write to; it is flushed but not closed
+     * @param format the output format
+     * @return the number of records written
+     * @throws IOException if writing fails
+     */
+    public long exportClassAndInstanceUris(OutputStream out, SummaryExporter.Format format) throws IOException {
+        return new SummaryExporter(format).export(model.getGraph(), out);
+    }
+
+    /**
+     * Copies the loaded data into a sharded store, for parallel scans and class lookups that
+     * only touch the shards holding the class. The store does not follow later model changes.
+     *
+     * @param shardCount   the number of shards
+     * @param partitioning how subjects are assigned to shards
+     * @return the sharded store
+     */
+    public ShardedInstanceStore toShardedStore(int shardCount, ShardedInstanceStore.Partitioning partitioning) {
+        return ShardedInstanceStore.build(model.getGraph(), shardCount, partitioning);
+    }
+
     public static void main(String[] args) {
         String filePath = "examples/instance.rdf";
         String fileExtension = ".rdf";
@@ -0,0 +1,89 @@
+package gr.forth.ics.isl;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, used to collect IDs without boxing.
+ */
+public final class IntList {
+
+    private int[] values;
+    private int size;
+
+    /**
+     * Constructs an empty list with a default capacity.
+     */
+    public IntList() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty list.
+     *
+     * @param capacity the initial capacity
+     */
+    public IntList(int capacity) {
+        this.values = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Appends a value.
+     *
+     * @param value the value to append
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * @param index the position of the value
+     * @return the value at the given position
+     */
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * @return the number of values in the list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the list holds no values
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all values, keeping the allocated capacity for reuse.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return a copy of the values as an array
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Returns the backing array, which may be longer than {@link #size()}. The array is
+     * only valid until the next modification of the list.
+     *
+     * @return the backing array
+     */
+    int[] array() {
+        return values;
+    }
+}
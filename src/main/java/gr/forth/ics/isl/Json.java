@@ -0,0 +1,63 @@
+package gr.forth.ics.isl;
+
+/**
+ * Minimal helpers for writing JSON output without building intermediate documents.
+ */
+final class Json {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Json() {
+    }
+
+    /**
+     * Appends a string as a quoted and escaped JSON string.
+     *
+     * @param out the builder to append to
+     * @param value the string to append, null is written as {@code null}
+     * @return the given builder
+     */
+    static StringBuilder quote(StringBuilder out, String value) {
+        if (value == null) {
+            return out.append("null");
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xf]);
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    /**
+     * Returns a string as a quoted and escaped JSON string.
+     *
+     * @param value the string to quote
+     * @return the JSON string literal
+     */
+    static String quote(String value) {
+        return quote(new StringBuilder(value == null ? 4 : value.length() + 2), value).toString();
+    }
+}
@@ -0,0 +1,37 @@
+package gr.forth.ics.isl;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDFS;
+
+/**
+ * Reads {@code rdfs:label} values straight from a graph, the same way for every listing.
+ */
+final class Labels {
+
+    private Labels() {
+    }
+
+    /**
+     * Returns the label of a resource: the lexical form of its first {@code rdfs:label} if that
+     * is a literal, the string form of the node otherwise, and an empty string if it has none.
+     *
+     * @param graph    the graph holding the labels
+     * @param resource the labelled resource
+     * @return the label
+     */
+    static String label(Graph graph, Node resource) {
+        ExtendedIterator<Triple> labels = graph.find(resource, RDFS.label.asNode(), Node.ANY);
+        try {
+            if (labels.hasNext()) {
+                Node label = labels.next().getObject();
+                return label.isLiteral() ? label.getLiteralLexicalForm() : label.toString();
+            }
+            return "";
+        } finally {
+            labels.close();
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package gr.forth.ics.isl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.tdb.TDB;
+import org.apache.jena.tdb.TDBFactory;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+/**
+ * Class for loading RDF under a memory budget. The heap size of the graph is estimated while
+ * triples stream out of the parser; once the estimate crosses the budget the load is either
+ * rejected with a {@link MemoryBudgetExceededException} or continues into an on-disk TDB store,
+ * so that a single oversized input cannot exhaust the heap of the whole process.
+ *
+ * <p>Spilled loads use TDB1 rather than TDB2, because TDB2 graphs can only be read inside
+ * transactions and the rest of this library reads models without them.</p>
+ */
+public class MemoryBudget {
+
+    /**
+     * Estimated heap bytes per triple of an in-memory graph: the triple and its entries
+     * in the subject, predicate and object indexes.
+     */
+    static final long TRIPLE_BYTES = 120;
+
+    /**
+     * Estimated heap bytes of a node, excluding the characters of its URI or lexical form.
+     */
+    static final long NODE_BYTES = 64;
+
+    /**
+     * What to do once a load exceeds the budget.
+     */
+    public enum Policy {
+        /**
+         * Abort the load with a {@link MemoryBudgetExceededException}.
+         */
+        REJECT,
+        /**
+         * Move the triples read so far to a TDB store on disk and continue there.
+         */
+        SPILL
+    }
+
+    /**
+     * The graph produced by a load, in memory or spilled to disk.
+     */
+    public static final class Load implements AutoCloseable {
+
+        private final Graph graph;
+        private final long triples;
+        private final long estimatedBytes;
+        private final DatasetGraph store;
+        private final Path storeDirectory;
+
+        Load(Graph graph, long triples, long estimatedBytes, DatasetGraph store, Path storeDirectory) {
+            this.graph = graph;
+            this.triples = triples;
+            this.estimatedBytes = estimatedBytes;
+            this.store = store;
+            this.storeDirectory = storeDirectory;
+        }
+
+        /**
+         * @return the loaded graph
+         */
+        public Graph getGraph() {
+            return graph;
+        }
+
+        /**
+         * @param spec the specification of the ontology model
+         * @return an ontology model over the loaded graph
+         */
+        public OntModel asOntModel(OntModelSpec spec) {
+            return ModelFactory.createOntologyModel(spec, ModelFactory.createModelForGraph(graph));
+        }
+
+        /**
+         * @return the number of triples read
+         */
+        public long getTriples() {
+            return triples;
+        }
+
+        /**
+         * @return the estimated heap size the triples would take in memory
+         */
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
+        /**
+         * @return true if the triples were spilled to an on-disk store
+         */
+        public boolean isSpilled() {
+            return store != null;
+        }
+
+        /**
+         * Releases the on-disk store of a spilled load and deletes its files. The graph
+         * must not be used afterwards. Does nothing for in-memory loads.
+         */
+        @Override
+        public void close() {
+            if (store == null) {
+                return;
+            }
+            TDBFactory.release(store);
+            try (Stream<Path> files = Files.walk(storeDirectory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private final long maxBytes;
+    private final Policy policy;
+    private final Path spillDirectory;
+
+    /**
+     * Constructs a MemoryBudget.
+     *
+     * @param maxBytes       the estimated heap size a single load may take
+     * @param policy         what to do when a load exceeds the budget
+     * @param spillDirectory the directory spilled stores are created in, used with {@link Policy#SPILL}
+     */
+    public MemoryBudget(long maxBytes, Policy policy, Path spillDirectory) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("The memory budget must be positive: " + maxBytes);
+        }
+        if (policy == Policy.SPILL && spillDirectory == null) {
+            throw new IllegalArgumentException("A spill directory is required to spill to disk");
+        }
+        this.maxBytes = maxBytes;
+        this.policy = policy;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Constructs a MemoryBudget that rejects loads exceeding it.
+     *
+     * @param maxBytes the estimated heap size a single load may take
+     */
+    public MemoryBudget(long maxBytes) {
+        this(maxBytes, Policy.REJECT, null);
+    }
+
+    /**
+     * @return the estimated heap size a single load may take
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Parses a stream under the budget.
+     *
+     * @param in   the stream to parse
+     * @param lang the RDF format, as used in {@link OntologyReasoner#langs}
+     * @param base the base URI of the document, may be null
+     * @return the loaded graph
+     * @throws MemoryBudgetExceededException if the input exceeds the budget and the policy is {@link Policy#REJECT}
+     */
+    public Load load(InputStream in, String lang, String base) {
+        Lang parserLang = RDFLanguages.nameToLang(lang);
+        if (parserLang == null) {
+            throw new IllegalArgumentException("Unknown RDF format: " + lang);
+        }
+        BudgetedSink sink = new BudgetedSink();
+        UriInterner interner = new UriInterner(sink);
+        sink.interner = interner;
+        try {
+            RDFParser.source(in).lang(parserLang).base(base).parse(interner);
+        } catch (RuntimeException e) {
+            sink.abort();
+            // Parsers may wrap exceptions thrown by the sink
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof MemoryBudgetExceededException) {
+                    throw (MemoryBudgetExceededException) cause;
+                }
+            }
+            throw e;
+        }
+        if (sink.store != null) {
+            TDB.sync(sink.store);
+        }
+        return new Load(sink.graph, sink.triples, sink.bytes, sink.store, sink.storeDirectory);
+    }
+
+    /**
+     * Estimates the heap size a triple adds to an in-memory graph. Subjects and objects are
+     * charged on every occurrence although equal URIs share one node, so the estimate errs on
+     * the high side; predicates come from a small vocabulary and are not charged.
+     *
+     * @param triple the triple
+     * @return the estimated size in bytes
+     */
+    static long estimate(Triple triple) {
+        return TRIPLE_BYTES + estimate(triple.getSubject()) + estimate(triple.getObject());
+    }
+
+    /**
+     * Estimates the heap size of an in-memory graph.
+     *
+     * @param graph the graph
+     * @return the estimated size in bytes
+     */
+    static long estimate(Graph graph) {
+        long bytes = 0;
+        ExtendedIterator<Triple> it = graph.find(Node.ANY, Node.ANY, Node.ANY);
+        try {
+            while (it.hasNext()) {
+                bytes += estimate(it.next());
+            }
+        } finally {
+            it.close();
+        }
+        return bytes;
+    }
+
+    private static long estimate(Node node) {
+        if (node.isLiteral()) {
+            return NODE_BYTES + 2L * node.getLiteralLexicalForm().length();
+        }
+        if (node.isURI()) {
+            return NODE_BYTES + 2L * node.getURI().length();
+        }
+        return NODE_BYTES;
+    }
+
+    /**
+     * Receives the parsed triples, adding them to memory until the budget is crossed.
+     */
+    private final class BudgetedSink extends StreamRDFBase {
+
+        Graph graph = GraphFactory.createDefaultGraph();
+        long triples;
+        long bytes;
+        DatasetGraph store;
+        Path storeDirectory;
+        UriInterner interner;
+
+        @Override
+        public void triple(Triple triple) {
+            triples++;
+            bytes += estimate(triple);
+            if (store == null && bytes > maxBytes) {
+                if (policy == Policy.REJECT) {
+                    throw new MemoryBudgetExceededException("The input exceeds the memory budget of " + maxBytes
+                            + " bytes after " + triples + " triples");
+                }
+                spill();
+            }
+            graph.add(triple);
+        }
+
+        @Override
+        public void quad(Quad quad) {
+            // Named graphs are dropped, as when parsing into a graph without a budget
+            if (quad.isTriple() || quad.isDefaultGraph()) {
+                triple(quad.asTriple());
+            }
+        }
+
+        @Override
+        public void prefix(String prefix, String iri) {
+            graph.getPrefixMapping().setNsPrefix(prefix, iri);
+        }
+
+        private void spill() {
+            try {
+                Files.createDirectories(spillDirectory);
+                storeDirectory = Files.createTempDirectory(spillDirectory, "spill");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            store = TDBFactory.createDatasetGraph(storeDirectory.toString());
+            Graph disk = store.getDefaultGraph();
+            disk.getPrefixMapping().setNsPrefixes(graph.getPrefixMapping());
+            ExtendedIterator<Triple> it = graph.find(Node.ANY, Node.ANY, Node.ANY);
+            try {
+                while (it.hasNext()) {
+                    disk.add(it.next());
+                }
+            } finally {
+                it.close();
+            }
+            graph = disk;
+            // Shared URI nodes save nothing on disk, while the table would keep growing with the input
+            interner.stop();
+        }
+
+        void abort() {
+            if (store != null) {
+                new Load(graph, triples, bytes, store, storeDirectory).close();
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package gr.forth.ics.isl;
+
+import org.apache.jena.shared.JenaException;
+
+/**
+ * Thrown when an input exceeds the {@link MemoryBudget} of its load.
+ */
+public class MemoryBudgetExceededException extends JenaException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a MemoryBudgetExceededException.
+     *
+     * @param message the description of the exceeded budget
+     */
+    public MemoryBudgetExceededException(String message) {
+        super(message);
+    }
+}
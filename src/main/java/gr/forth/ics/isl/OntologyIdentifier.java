@@ -3,6 +3,7 @@ package gr.forth.ics.isl;
 import java.io.StringReader;
 import org.apache.jena.query.QueryExecution;
 import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.ontology.OntModel;
 import org.apache.jena.ontology.OntModelSpec;
@@ -20,12 +21,12 @@ public class OntologyIdentifier {
     /**
      * Retrieves the RDF format based on the given file extension.
      *
-     * @param extension the file extension
+     * @param extension the file extension, optionally followed by a compression suffix such as {@code .gz}
      * @return the RDF format corresponding to the extension
      * @throws IllegalArgumentException if the file extension is not supported
      */
     public String getRdfFormat(String extension) {
-        String format = OntologyReasoner.langs.get(extension.toLowerCase());
+        String format = OntologyReasoner.langs.get(CompressedInput.formatExtension(extension));
         if (format == null) {
             throw new IllegalArgumentException("Unsupported file extension: " + extension);
         }
@@ -36,16 +37,23 @@ public class OntologyIdentifier {
      * Checks if the given file contents represent an RDF schema.
      *
      * @param fileContents the contents of the file
-     * @param extension the file extension
+     * @param extension the file extension, used when the format cannot be detected from the contents with confidence
      * @return true if the file is an RDF schema, false otherwise
-     * @throws IllegalArgumentException if the file extension is not supported
+     * @throws IllegalArgumentException if the format can be determined neither from the contents nor the extension
      */
     public boolean isSchema(String fileContents, String extension) {
-        if (!OntologyReasoner.langs.keySet().contains(extension.toLowerCase())) {
-            throw new IllegalArgumentException("The given file extension (" + extension + ") is not supported. "
-                    + "The list of accepted file extensions is " +  OntologyReasoner.langs.keySet());
-        }
-        model.read(new StringReader(fileContents), null, OntologyReasoner.langs.get(extension.toLowerCase()));
+        String lang = OntologyReasoner.resolveLang(extension, FormatSniffer.detect(fileContents));
+        model.read(new StringReader(fileContents), null, lang);
+        return isSchema(model);
+    }
+
+    /**
+     * Checks if an already loaded model represents an RDF schema, i.e. declares classes or properties.
+     *
+     * @param model the model to check
+     * @return true if the model is an RDF schema, false otherwise
+     */
+    public boolean isSchema(Model model) {
         String query = "ASK "
                 + "WHERE { "
                 + "?s ?p ?type. "
@@ -1,5 +1,11 @@
 package gr.forth.ics.isl;
 
+import org.apache.jena.atlas.web.TypedInputStream;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.ontology.OntDocumentManager;
 import org.apache.jena.ontology.OntModel;
 import org.apache.jena.ontology.OntModelSpec;
 import org.apache.jena.ontology.OntClass;
@@ -7,20 +13,33 @@ import org.apache.jena.ontology.OntProperty;
 import org.apache.jena.ontology.OntResource;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.reasoner.ValidityReport;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RiotNotFoundException;
+import org.apache.jena.riot.system.stream.StreamManager;
 import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import org.slf4j.LoggerFactory;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.LoggerContext;
@@ -34,8 +53,59 @@ public class OntologyReasoner {
     /**
      * Ontology model used for reading and manipulating RDF data.
      */
-    private OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
-    private static OntModel modelAll = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
+    private OntModel model;
+
+    /**
+     * Union of the graphs of all models loaded by any reasoner. Loaded graphs are added to the
+     * union without copying them or rebinding the model over it.
+     */
+    private static final UnionGraphView loadedGraphs = new UnionGraphView();
+
+    /**
+     * Holds the model over the union of all loaded models. It is created when first asked for
+     * rather than when this class is initialized, since creating an ontology model initializes
+     * Jena and most callers, such as those only looking up {@link #langs}, never need it.
+     */
+    private static final class ModelAll {
+
+        static final OntModel MODEL =
+                ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM, ModelFactory.createModelForGraph(loadedGraphs));
+    }
+
+    /**
+     * The reasoning profile models are loaded and validated with.
+     */
+    private final ReasoningProfile profile;
+
+    /**
+     * Pellet knowledge base over the current model, kept for incremental consistency checks.
+     */
+    private PelletConsistencyChecker checker;
+
+    /**
+     * Resolves owl:imports of models loaded from URLs, or null to let Jena fetch them one by one.
+     */
+    private ImportResolver importResolver;
+
+    /**
+     * Budget that loads of file contents are parsed under, or null to parse without limits.
+     */
+    private MemoryBudget memoryBudget;
+
+    /**
+     * Dictionary encoding the terms returned by the ID-based listing methods.
+     */
+    private final TermDictionary dictionary;
+
+    /**
+     * The rdf:type values denoting classes in the profile of the current model, computed on first use.
+     */
+    private volatile Node[] classTypes;
+
+    /**
+     * Connectivity graph of the classes of the current model, computed on first use.
+     */
+    private volatile ClassGraph classGraph;
 
     /**
      * HashMap storing RDF formats associated with file extensions.
@@ -43,8 +113,102 @@ public class OntologyReasoner {
     protected static final HashMap<String, String> langs = new HashMap<String, String>();
 
 
+    /**
+     * Constructs an OntologyReasoner without inference.
+     */
+    public OntologyReasoner() {
+        this(ReasoningProfile.NONE);
+    }
+
+    /**
+     * Constructs an OntologyReasoner that loads and validates models with the given profile.
+     *
+     * @param profile the reasoning profile
+     */
+    public OntologyReasoner(ReasoningProfile profile) {
+        this(profile, new TermDictionary());
+    }
+
+    /**
+     * Constructs an OntologyReasoner that encodes terms with an existing dictionary, so that
+     * IDs stay stable across reasoners over successive versions of the same data.
+     */
+    OntologyReasoner(ReasoningProfile profile, TermDictionary dictionary) {
+        this.profile = profile;
+        this.dictionary = dictionary;
+        this.model = ModelFactory.createOntologyModel(profile.getSpec());
+    }
+
+    /**
+     * @return the ontology model the reasoner works on
+     */
+    public OntModel getModel() {
+        return model;
+    }
+
     public void setModel(OntModel model) {
         this.model = model;
+        this.checker = null;
+        modelChanged();
+    }
+
+    /**
+     * Drops what was derived from the previous content of the model, to be recomputed on next use.
+     */
+    private void modelChanged() {
+        this.classTypes = null;
+        this.classGraph = null;
+    }
+
+    /**
+     * Sets the resolver that fetches the owl:imports of models loaded from URLs concurrently
+     * and caches them locally, instead of Jena's document manager fetching them serially.
+     *
+     * @param importResolver the import resolver, or null to use Jena's document manager
+     */
+    public void setImportResolver(ImportResolver importResolver) {
+        this.importResolver = importResolver;
+    }
+
+    /**
+     * Sets the memory budget that {@link #initiateModelFileContent(String, String)} parses under,
+     * so that an oversized input is rejected or spilled to disk instead of exhausting the heap.
+     *
+     * @param memoryBudget the memory budget, or null to parse without limits
+     */
+    public void setMemoryBudget(MemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Creates an empty model for a document loaded from a URL. When an import resolver is set,
+     * the model's document manager does not process imports, as the resolver adds them.
+     */
+    private OntModel createUrlModel(Model base) {
+        if (importResolver == null) {
+            return ModelFactory.createOntologyModel(profile.getSpec(), base);
+        }
+        OntModelSpec spec = new OntModelSpec(profile.getSpec());
+        OntDocumentManager documentManager = new OntDocumentManager();
+        documentManager.setProcessImports(false);
+        spec.setDocumentManager(documentManager);
+        return ModelFactory.createOntologyModel(spec, base);
+    }
+
+    /**
+     * Adds the imports closure of a model loaded from a URL, when an import resolver is set.
+     */
+    private void resolveImports(OntModel model, String url) {
+        if (importResolver != null) {
+            importResolver.resolve(model.getBaseModel(), url).addTo(model);
+        }
+    }
+
+    /**
+     * @return the reasoning profile models are loaded and validated with
+     */
+    public ReasoningProfile getProfile() {
+        return profile;
     }
 
 
@@ -134,6 +298,218 @@ public class OntologyReasoner {
         return classSet;
     }
 
+    /**
+     * Returns the graph of how classes connect through properties, for reachability and path
+     * queries between classes. It is computed from the domain, range and subclass declarations
+     * of the current model on first use and recomputed after the model is replaced or loaded
+     * into through this reasoner; changes made to the model directly are not reflected.
+     *
+     * @return the class connectivity graph
+     */
+    public ClassGraph getClassGraph() {
+        ClassGraph graph = classGraph;
+        if (graph == null) {
+            graph = ClassGraph.build(model.getGraph());
+            classGraph = graph;
+        }
+        return graph;
+    }
+
+    /**
+     * Returns the dictionary that encodes the IDs returned by the ID-based listing methods.
+     * IDs stay valid for the lifetime of this reasoner, also across {@link #setModel(OntModel)}.
+     *
+     * @return the term dictionary of this reasoner
+     */
+    public TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Returns the ID of a URI, assigning one if it has not been seen yet, e.g. to pass a class
+     * to {@link #listPropertyIds(int, IntList)}.
+     *
+     * @param uri the URI to encode
+     * @return the dictionary ID of the URI
+     */
+    public int encode(String uri) {
+        synchronized (dictionary) {
+            return dictionary.getOrAdd(NodeFactory.createURI(uri));
+        }
+    }
+
+    /**
+     * Lists the IDs of all classes defined in the ontology model, with the same semantics as
+     * {@link #getAllClasses()} but without creating class views or URI strings.
+     *
+     * @param target the list the IDs are appended to, e.g. a reused buffer
+     * @return the given list
+     */
+    public IntList getAllClassIds(IntList target) {
+        synchronized (dictionary) {
+            forEachClass(cls -> target.add(dictionary.getOrAdd(cls)));
+        }
+        return target;
+    }
+
+    /**
+     * Visits every class defined in the ontology model, with the same semantics as
+     * {@link #getAllClasses()}, by walking the rdf:type triples of the graph directly.
+     * No class views, URI strings or intermediate collections are created, and each
+     * class is visited once.
+     *
+     * @param visitor receives the node of every class
+     */
+    public void forEachClass(Consumer<Node> visitor) {
+        Graph graph = model.getGraph();
+        Node[] types = classTypes();
+        for (int k = 0; k < types.length; k++) {
+            ExtendedIterator<Triple> it = graph.find(Node.ANY, RDF.type.asNode(), types[k]);
+            try {
+                while (it.hasNext()) {
+                    Node cls = it.next().getSubject();
+                    // A class typed with several class types is visited for the first one only
+                    if (!hasEarlierType(graph, cls, types, k)) {
+                        visitor.accept(cls);
+                    }
+                }
+            } finally {
+                it.close();
+            }
+        }
+    }
+
+    /**
+     * Visits every property defined in the ontology model, with the same semantics as
+     * {@link #getAllProperties()}, by walking the rdf:type triples of the graph directly.
+     *
+     * @param visitor receives the node of every property
+     */
+    public void forEachProperty(Consumer<Node> visitor) {
+        ExtendedIterator<Triple> it = model.getGraph().find(Node.ANY, RDF.type.asNode(), propertyType());
+        try {
+            while (it.hasNext()) {
+                visitor.accept(it.next().getSubject());
+            }
+        } finally {
+            it.close();
+        }
+    }
+
+    /**
+     * Lists the IDs of all properties defined in the ontology model, with the same semantics as
+     * {@link #getAllProperties()} but without creating property views or URI strings.
+     *
+     * @param target the list the IDs are appended to, e.g. a reused buffer
+     * @return the given list
+     */
+    public IntList getAllPropertyIds(IntList target) {
+        synchronized (dictionary) {
+            forEachProperty(property -> target.add(dictionary.getOrAdd(property)));
+        }
+        return target;
+    }
+
+    /**
+     * Lists the IDs of all properties that have the given class among their ranges.
+     *
+     * @param classId the dictionary ID of the class
+     * @param target the list the IDs are appended to, e.g. a reused buffer
+     * @return the given list
+     */
+    public IntList listPropertyIds(int classId, IntList target) {
+        Graph graph = model.getGraph();
+        Node property = propertyType();
+        synchronized (dictionary) {
+            ExtendedIterator<Triple> it = graph.find(Node.ANY, RDFS.range.asNode(), dictionary.node(classId));
+            try {
+                while (it.hasNext()) {
+                    Node p = it.next().getSubject();
+                    if (graph.contains(p, RDF.type.asNode(), property)) {
+                        target.add(dictionary.getOrAdd(p));
+                    }
+                }
+            } finally {
+                it.close();
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Lists the IDs of the named domain classes of all properties that have the given class among their ranges.
+     *
+     * @param classId the dictionary ID of the class
+     * @param target the list the IDs are appended to, e.g. a reused buffer
+     * @return the given list
+     */
+    public IntList listObjectIds(int classId, IntList target) {
+        Graph graph = model.getGraph();
+        int start = target.size();
+        IntList properties = listPropertyIds(classId, new IntList());
+        synchronized (dictionary) {
+            for (int i = 0; i < properties.size(); i++) {
+                ExtendedIterator<Triple> it = graph.find(dictionary.node(properties.get(i)), RDFS.domain.asNode(), Node.ANY);
+                try {
+                    while (it.hasNext()) {
+                        Node domain = it.next().getObject();
+                        if (domain.isURI()) {
+                            int id = dictionary.getOrAdd(domain);
+                            if (!contains(target, start, id)) {
+                                target.add(id);
+                            }
+                        }
+                    }
+                } finally {
+                    it.close();
+                }
+            }
+        }
+        return target;
+    }
+
+    private static boolean contains(IntList list, int from, int value) {
+        for (int i = from; i < list.size(); i++) {
+            if (list.get(i) == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasEarlierType(Graph graph, Node node, Node[] types, int k) {
+        for (int j = 0; j < k; j++) {
+            if (graph.contains(node, RDF.type.asNode(), types[j])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the rdf:type values that make a resource a class in the model's profile
+     */
+    private Node[] classTypes() {
+        Node[] types = classTypes;
+        if (types == null) {
+            List<Node> found = new ArrayList<>();
+            Iterator<Resource> it = model.getProfile().getClassDescriptionTypes();
+            while (it.hasNext()) {
+                found.add(it.next().asNode());
+            }
+            types = found.toArray(new Node[0]);
+            classTypes = types;
+        }
+        return types;
+    }
+
+    /**
+     * @return the rdf:type value that makes a resource a property in the model's profile
+     */
+    private Node propertyType() {
+        return model.getProfile().PROPERTY().asNode();
+    }
+
     /**
      * Loads a schema file into the model and returns all declared namespaces with their prefixes.
      *
@@ -142,20 +518,24 @@ public class OntologyReasoner {
      * @throws FileNotFoundException If the schema file cannot be found.
      */
     public Map<String, String> initiateModel(File schemaFile) throws FileNotFoundException {
-        InputStream targetStream = new FileInputStream(schemaFile);
-        
-        // Get the file extension to determine the format
-        String filePath = schemaFile.getPath();
-        String extension = filePath.substring(filePath.lastIndexOf(".")).toLowerCase();
+        // Get the file extension to determine the format, ignoring any compression suffix
+        String extension = CompressedInput.formatExtension(schemaFile.getPath());
 
-        // Check if the file extension is supported
-        if (!OntologyReasoner.langs.keySet().contains(extension.toLowerCase())) {
-            throw new IllegalArgumentException("The given file extension (" + extension + ") is not supported. "
-                    + "The list of accepted file extensions is " + OntologyReasoner.langs.keySet());
+        // Read the schema file into the model, decompressing it on the fly if needed.
+        // The format is taken from the content when it is recognised with confidence,
+        // otherwise from the extension.
+        try (InputStream targetStream = new FileInputStream(schemaFile);
+             InputStream in = CompressedInput.open(targetStream)) {
+            UriInterner.read(model, RDFParser.source(in), resolveLang(extension, FormatSniffer.detect(in)), null);
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new org.apache.jena.shared.JenaException("Error: " + e.getMessage(), e);
+        } finally {
+            // The checker's knowledge base does not follow the new triples
+            checker = null;
+            modelChanged();
         }
-
-        // Read the schema file into the model
-        model.read(targetStream, null, langs.get(extension));
         
         // Retrieve the namespace prefixes and URIs
         Map<String, String> nsPrefixMap = model.getNsPrefixMap();
@@ -163,6 +543,19 @@ public class OntologyReasoner {
         return nsPrefixMap;
     }
 
+    /**
+     * Uses the partitions of some namespaces of a partitioned schema as the model, parsing
+     * them on first use, and returns all namespaces declared by the schema with their prefixes.
+     *
+     * @param schema     the partitioned schema
+     * @param namespaces the namespace URIs or prefixes to load
+     * @return A map where the key is the namespace prefix and the value is the namespace URI.
+     */
+    public Map<String, String> initiateModel(PartitionedSchema schema, Collection<String> namespaces) {
+        setModel(schema.createModel(profile.getSpec(), namespaces));
+        return schema.getNsPrefixMap();
+    }
+
     /**
      * Reads the content of a schema file provided as a URL and returns true if the schema is valid.
      * 
@@ -170,22 +563,22 @@ public class OntologyReasoner {
      * @return true if the schema is valid, false otherwise.
      */
     public boolean initiateModel(String modelNS) {
-        String ext = modelNS.substring(modelNS.lastIndexOf("."));
+        String ext = CompressedInput.formatExtension(modelNS);
         Model baseModel = ModelFactory.createDefaultModel();
-        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM, baseModel);
+        OntModel model = createUrlModel(baseModel);
 
         try {
-            model.read(modelNS, langs.get(ext));
+            readUrl(model, modelNS, ext);
+            resolveImports(model, modelNS);
         } catch (Exception e) {
             System.err.println("Error reading model: " + e.getMessage());
             return false;
         }
 
         // Check if the model is consistent
-        ValidityReport validity = model.validate();
-        boolean isValid = validity.isValid();
+        boolean isValid = isConsistent(model);
         if (isValid) {
-            modelAll.addSubModel(model);
+            addToModelAll(model);
         }
 
         return isValid;
@@ -201,11 +594,12 @@ public class OntologyReasoner {
     */
     public boolean initiateModelUrl(String modelNS, String extension) {
         disableLogging();
-        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM, (Model) null);
+        OntModel model = createUrlModel(null);
     
         try {
             model.setDerivationLogging(false);
-            model.read(modelNS, langs.get(extension));
+            readUrl(model, modelNS, extension);
+            resolveImports(model, modelNS);
         } catch (org.apache.jena.shared.JenaException e) {
             if (e.getMessage().contains("java.io.IOException")) {
                 throw new org.apache.jena.shared.JenaException("Connection refused to connect: " + e.getMessage());
@@ -217,15 +611,74 @@ public class OntologyReasoner {
         }
 
         model.prepare();
-        OntModel tmp = modelAll;
-        modelAll = model;
-        modelAll.addSubModel(tmp);
+        addToModelAll(model);
     
         // Check if the model is consistent
-        ValidityReport validity = model.validate();
-        return validity.isValid();
+        return isConsistent(model);
     }
     
+    /**
+     * Reads a document from a URL into the given model. Compressed documents
+     * (recognised from their suffix or magic bytes) are decompressed while streaming,
+     * and the format is detected from the first bytes of the content, falling back
+     * to the extension and then to the content type reported by the server.
+     *
+     * @param model the model to read into
+     * @param url the URL of the document
+     * @param extension the file extension of the document, may be null
+     */
+    static void readUrl(Model model, String url, String extension) {
+        TypedInputStream in = StreamManager.get().open(url);
+        if (in == null) {
+            throw new RiotNotFoundException("Not found: " + url);
+        }
+        try (InputStream body = CompressedInput.open(in)) {
+            String lang = FormatSniffer.chooseLang(extension, FormatSniffer.detect(body));
+            if (lang == null && in.getContentType() != null) {
+                Lang byContentType = RDFLanguages.contentTypeToLang(in.getContentType());
+                lang = byContentType == null ? null : byContentType.getName();
+            }
+            model.read(body, url, lang);
+        } catch (IOException e) {
+            throw new org.apache.jena.shared.JenaException(e);
+        }
+    }
+
+    /**
+     * Chooses the RDF format of a document from its detected content and its extension.
+     *
+     * @param extension the file extension of the document, may be null
+     * @param detection the format detected from the content, may be null
+     * @return the RDF format to parse the document with
+     * @throws IllegalArgumentException if the format can be determined neither from the content nor the extension
+     */
+    static String resolveLang(String extension, FormatSniffer.Detection detection) {
+        String lang = FormatSniffer.chooseLang(extension, detection);
+        if (lang == null) {
+            throw new IllegalArgumentException("The given file extension (" + extension + ") is not supported. "
+                    + "The list of accepted file extensions is " + OntologyReasoner.langs.keySet());
+        }
+        return lang;
+    }
+
+    /**
+     * Adds the base graph and the imported graphs of a loaded model to the union of all
+     * loaded models. Inferred triples are not added.
+     */
+    private static void addToModelAll(OntModel model) {
+        loadedGraphs.addGraph(model.getBaseModel().getGraph());
+        for (Graph imported : model.getSubGraphs()) {
+            loadedGraphs.addGraph(imported);
+        }
+    }
+
+    /**
+     * @return a model over the union of all models loaded by any reasoner
+     */
+    public static OntModel getModelAll() {
+        return ModelAll.MODEL;
+    }
+
     // Method to disable logging
     public static void disableLogging() {
         LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
@@ -244,12 +697,21 @@ public class OntologyReasoner {
     public boolean initiateModelFileContent(String fileContent, String extension) {
         disableLogging();
 
-        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM, (Model) null);
+        OntModel model = ModelFactory.createOntologyModel(profile.getSpec(), (Model) null);
         InputStream in = new ByteArrayInputStream(fileContent.getBytes(StandardCharsets.UTF_8));
+        MemoryBudget.Load load = null;
 
         try {
+            String lang = resolveLang(extension, FormatSniffer.detect(fileContent));
+            if (memoryBudget != null) {
+                load = memoryBudget.load(in, lang, null);
+                model = load.asOntModel(profile.getSpec());
+            } else {
+                UriInterner.read(model, RDFParser.source(in), lang, null);
+            }
             model.setDerivationLogging(false);
-            model.read(in, langs.get(extension));
+        } catch (MemoryBudgetExceededException e) {
+            throw e;
         } catch (org.apache.jena.shared.JenaException e) {
             if (e.getMessage().contains("java.io.IOException")) {
                 throw new org.apache.jena.shared.JenaException("Connection refused to connect: " + e.getMessage());
@@ -260,13 +722,64 @@ public class OntologyReasoner {
             }
         }
 
+    // A spilled model is only checked: it is kept out of ModelAll, whose union indexes every
+    // subject and predicate on the heap, and its store is released once the check is done
+    if (load != null && load.isSpilled()) {
+        try {
+            model.prepare();
+            return isConsistent(model);
+        } finally {
+            load.close();
+        }
+    }
     model.prepare();
-    OntModel tmp = modelAll;
-    modelAll = model;
-    modelAll.addSubModel(tmp);
+    addToModelAll(model);
+
+    return isConsistent(model);
+    }
 
-    ValidityReport validity = model.validate();
-    return validity.isValid();
+    /**
+     * Checks the consistency of the current model with the reasoning profile. Under
+     * {@link ReasoningProfile#PELLET} the knowledge base built here is kept, so that
+     * later calls after {@link #addInstances(Model)} are checked incrementally.
+     *
+     * @return true if the model is consistent
+     */
+    public boolean isConsistent() {
+        if (profile == ReasoningProfile.PELLET) {
+            if (checker == null) {
+                checker = new PelletConsistencyChecker(model.getGraph());
+            }
+            return checker.isConsistent();
+        }
+        return isConsistent(model);
+    }
+
+    /**
+     * Adds instance (ABox) data to the current model and checks that the model stays consistent.
+     *
+     * @param instances the instance data
+     * @return true if the model is consistent after the addition
+     */
+    public boolean addInstances(Model instances) {
+        model.add(instances);
+        modelChanged();
+        if (checker != null) {
+            checker.add(instances.getGraph());
+        }
+        return isConsistent();
+    }
+
+    /**
+     * Checks the consistency of a model with the reasoning profile. Models without a
+     * reasoner produce no validity report and are considered consistent.
+     */
+    private boolean isConsistent(OntModel model) {
+        if (profile == ReasoningProfile.PELLET) {
+            return new PelletConsistencyChecker(model.getGraph()).isConsistent();
+        }
+        ValidityReport validity = model.validate();
+        return validity == null || validity.isValid();
     }
 
 }
\ No newline at end of file
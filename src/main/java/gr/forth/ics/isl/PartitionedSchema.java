@@ -0,0 +1,330 @@
+package gr.forth.ics.isl;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.compose.MultiUnion;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.util.SplitIRI;
+
+/**
+ * Class for loading a large multi-vocabulary schema one namespace at a time. The document is
+ * parsed once, streaming, into one N-Triples partition file per subject namespace, and an index
+ * of the partitions is written next to them; later opens of an unchanged document read only
+ * the index. A partition is parsed into memory the first time it is requested, so start-up time
+ * and resident memory grow with the namespaces that are actually used.
+ *
+ * <p>Subjects are assigned to the longest namespace of the document's prefix map, as returned by
+ * {@link OntologyReasoner#initiateModel(File)}, that contains the namespace part of their URI,
+ * or else to that namespace part. Triples about blank nodes (restrictions, lists) cannot be attributed to a namespace
+ * while streaming, so they are kept in a separate partition that is loaded with the first
+ * namespace requested.</p>
+ */
+public class PartitionedSchema {
+
+    /**
+     * The name of the index file in the partition directory.
+     */
+    static final String INDEX_FILE = "partitions.tsv";
+
+    /**
+     * The index key of the partition holding the triples about blank nodes.
+     */
+    static final String BLANK_NODES = "_:";
+
+    private final Path directory;
+    private final Map<String, String> prefixes;
+    private final Map<String, String> files;
+    private final Map<String, Long> triples;
+    private final Map<String, Graph> loaded = new ConcurrentHashMap<>();
+
+    private PartitionedSchema(Path directory, Map<String, String> prefixes, Map<String, String> files,
+                              Map<String, Long> triples) {
+        this.directory = directory;
+        this.prefixes = Collections.unmodifiableMap(prefixes);
+        this.files = files;
+        this.triples = triples;
+    }
+
+    /**
+     * Opens a schema, partitioning it unless the directory holds the partitions of the
+     * current version of the file.
+     *
+     * @param schemaFile the schema file, in any format accepted by {@link OntologyReasoner#initiateModel(File)}
+     * @param directory  the directory holding the partitions of this schema only
+     * @return the partitioned schema
+     * @throws IOException if the schema cannot be read or the partitions cannot be written
+     */
+    public static PartitionedSchema open(File schemaFile, Path directory) throws IOException {
+        Path index = directory.resolve(INDEX_FILE);
+        if (Files.isRegularFile(index) && Files.getLastModifiedTime(index).toMillis() >= schemaFile.lastModified()) {
+            return readIndex(directory);
+        }
+        return partition(schemaFile, directory);
+    }
+
+    /**
+     * @return the namespace prefixes declared by the schema
+     */
+    public Map<String, String> getNsPrefixMap() {
+        return prefixes;
+    }
+
+    /**
+     * @return the namespaces the schema has partitions for, excluding the blank node partition
+     */
+    public Set<String> getNamespaces() {
+        Set<String> namespaces = new TreeSet<>(files.keySet());
+        namespaces.remove(BLANK_NODES);
+        return namespaces;
+    }
+
+    /**
+     * @param namespace a namespace URI
+     * @return the number of triples in the partition of the namespace, 0 if it has none
+     */
+    public long getTripleCount(String namespace) {
+        return triples.getOrDefault(namespace, 0L);
+    }
+
+    /**
+     * @return the namespaces whose partitions are in memory
+     */
+    public Set<String> getLoadedNamespaces() {
+        Set<String> namespaces = new TreeSet<>(loaded.keySet());
+        namespaces.remove(BLANK_NODES);
+        return namespaces;
+    }
+
+    /**
+     * Returns the partition of a namespace, parsing it on first access.
+     *
+     * @param namespace a namespace URI or a prefix declared by the schema
+     * @return the graph of the triples whose subject is in the namespace
+     * @throws IllegalArgumentException if the schema has no partition for the namespace
+     */
+    public Graph getPartition(String namespace) {
+        String uri = prefixes.getOrDefault(namespace, namespace);
+        String file = files.get(uri);
+        if (file == null) {
+            throw new IllegalArgumentException("No partition for namespace: " + namespace);
+        }
+        return loaded.computeIfAbsent(uri, ns -> read(directory.resolve(file)));
+    }
+
+    /**
+     * Creates an ontology model over the partitions of some namespaces and the blank node
+     * partition. The model is a read-only view; the partitions stay shared with later models.
+     *
+     * @param spec       the specification of the ontology model
+     * @param namespaces namespace URIs or prefixes declared by the schema
+     * @return the ontology model
+     */
+    public OntModel createModel(OntModelSpec spec, Collection<String> namespaces) {
+        List<Graph> graphs = new ArrayList<>();
+        for (String namespace : namespaces) {
+            graphs.add(getPartition(namespace));
+        }
+        if (files.containsKey(BLANK_NODES)) {
+            graphs.add(getPartition(BLANK_NODES));
+        }
+        MultiUnion union = new MultiUnion(graphs.toArray(new Graph[0]));
+        union.getPrefixMapping().setNsPrefixes(prefixes);
+        return ModelFactory.createOntologyModel(spec, ModelFactory.createModelForGraph(union));
+    }
+
+    /**
+     * Parses a partition file, keeping the blank node labels written by {@link Partitioner}
+     * so that blank nodes are shared across partitions.
+     */
+    private static Graph read(Path file) {
+        Graph graph = GraphFactory.createDefaultGraph();
+        RDFParser.source(file).lang(RDFLanguages.NTRIPLES).labelToNode(LabelToNode.createUseLabelEncoded())
+                .parse(graph);
+        return graph;
+    }
+
+    private static PartitionedSchema partition(File schemaFile, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        String extension = CompressedInput.formatExtension(schemaFile.getPath());
+        Partitioner partitioner = new Partitioner(directory);
+        try (InputStream in = CompressedInput.open(new FileInputStream(schemaFile))) {
+            String lang = OntologyReasoner.resolveLang(extension, FormatSniffer.detect(in));
+            RDFParser.source(in).lang(RDFLanguages.nameToLang(lang)).parse(partitioner);
+        } finally {
+            partitioner.closeWriters();
+        }
+        partitioner.assignDeclaredNamespaces();
+        writeIndex(directory, partitioner.prefixes, partitioner.files, partitioner.triples);
+        return new PartitionedSchema(directory, partitioner.prefixes, partitioner.files, partitioner.triples);
+    }
+
+    /**
+     * Writes the index as tab-separated lines: {@code prefix <p> <ns>} for each prefix and
+     * {@code partition <ns> <file> <triples>} for each partition.
+     */
+    private static void writeIndex(Path directory, Map<String, String> prefixes, Map<String, String> files,
+                                   Map<String, Long> triples) throws IOException {
+        // Write to a temporary file first so that an interrupted run leaves no index behind
+        Path tmp = Files.createTempFile(directory, "partitions", ".tmp");
+        try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> prefix : prefixes.entrySet()) {
+                out.write("prefix\t" + prefix.getKey() + "\t" + prefix.getValue() + "\n");
+            }
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                out.write("partition\t" + file.getKey() + "\t" + file.getValue() + "\t"
+                        + triples.get(file.getKey()) + "\n");
+            }
+        }
+        Files.move(tmp, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static PartitionedSchema readIndex(Path directory) throws IOException {
+        Map<String, String> prefixes = new LinkedHashMap<>();
+        Map<String, String> files = new LinkedHashMap<>();
+        Map<String, Long> triples = new HashMap<>();
+        try (BufferedReader in = Files.newBufferedReader(directory.resolve(INDEX_FILE), StandardCharsets.UTF_8)) {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                String[] fields = line.split("\t", -1);
+                if (fields[0].equals("prefix")) {
+                    prefixes.put(fields[1], fields[2]);
+                } else if (fields[0].equals("partition")) {
+                    files.put(fields[1], fields[2]);
+                    triples.put(fields[1], Long.parseLong(fields[3]));
+                }
+            }
+        }
+        return new PartitionedSchema(directory, prefixes, files, triples);
+    }
+
+    /**
+     * Receives the parsed triples and appends each to the partition file of the namespace part
+     * of its subject. Prefixes may be declared after the subjects they cover, so the partitions
+     * are only assigned to the declared namespaces once the whole document has been read.
+     */
+    private static final class Partitioner extends StreamRDFBase {
+
+        final Path directory;
+        final Map<String, String> prefixes = new LinkedHashMap<>();
+        final Map<String, String> files = new LinkedHashMap<>();
+        final Map<String, Long> triples = new HashMap<>();
+        final Map<String, Writer> writers = new HashMap<>();
+        final StringBuilder line = new StringBuilder(256);
+
+        Partitioner(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public void prefix(String prefix, String iri) {
+            prefixes.put(prefix, iri);
+        }
+
+        @Override
+        public void triple(Triple triple) {
+            String namespace = namespaceOf(triple.getSubject());
+            line.setLength(0);
+            line.append(NodeFmtLib.strNT(triple.getSubject())).append(' ')
+                    .append(NodeFmtLib.strNT(triple.getPredicate())).append(' ')
+                    .append(NodeFmtLib.strNT(triple.getObject())).append(" .\n");
+            try {
+                writer(namespace).append(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            triples.merge(namespace, 1L, Long::sum);
+        }
+
+        private static String namespaceOf(Node subject) {
+            return subject.isURI() ? SplitIRI.namespace(subject.getURI()) : BLANK_NODES;
+        }
+
+        /**
+         * Moves every partition to the longest declared namespace containing its namespace,
+         * appending the partitions that end up in the same namespace to the first of them.
+         */
+        void assignDeclaredNamespaces() throws IOException {
+            Map<String, String> assigned = new LinkedHashMap<>();
+            Map<String, Long> counts = new HashMap<>();
+            for (Map.Entry<String, String> partition : files.entrySet()) {
+                String namespace = declaredNamespace(partition.getKey());
+                String target = assigned.putIfAbsent(namespace, partition.getValue());
+                if (target != null) {
+                    Path source = directory.resolve(partition.getValue());
+                    try (OutputStream out = Files.newOutputStream(directory.resolve(target), StandardOpenOption.APPEND)) {
+                        Files.copy(source, out);
+                    }
+                    Files.delete(source);
+                }
+                counts.merge(namespace, triples.get(partition.getKey()), Long::sum);
+            }
+            files.clear();
+            files.putAll(assigned);
+            triples.clear();
+            triples.putAll(counts);
+        }
+
+        private String declaredNamespace(String namespace) {
+            if (namespace.equals(BLANK_NODES)) {
+                return namespace;
+            }
+            String longest = null;
+            for (String declared : prefixes.values()) {
+                if (namespace.startsWith(declared) && (longest == null || declared.length() > longest.length())) {
+                    longest = declared;
+                }
+            }
+            return longest != null ? longest : namespace;
+        }
+
+        private Writer writer(String namespace) throws IOException {
+            Writer writer = writers.get(namespace);
+            if (writer == null) {
+                String file = namespace.equals(BLANK_NODES) ? "blank.nt" : "partition" + files.size() + ".nt";
+                files.put(namespace, file);
+                writer = Files.newBufferedWriter(directory.resolve(file), StandardCharsets.UTF_8);
+                writers.put(namespace, writer);
+            }
+            return writer;
+        }
+
+        void closeWriters() throws IOException {
+            for (Writer writer : writers.values()) {
+                writer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package gr.forth.ics.isl;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.mindswap.pellet.PelletOptions;
+import org.mindswap.pellet.jena.PelletInfGraph;
+import org.mindswap.pellet.jena.PelletReasonerFactory;
+
+import com.hp.hpl.jena.datatypes.TypeMapper;
+import com.hp.hpl.jena.rdf.model.AnonId;
+
+/**
+ * Consistency checker backed by the Pellet tableau reasoner.
+ *
+ * <p>Pellet 2.3 is built on the Jena 2 API ({@code com.hp.hpl.jena}), so triples are converted
+ * node by node into a Jena 2 graph that Pellet reasons over; no serialization round trip is
+ * involved. Triples added after the initial load are passed to Pellet as updates, which it
+ * checks incrementally instead of reloading the knowledge base.</p>
+ */
+class PelletConsistencyChecker {
+
+    static {
+        PelletOptions.USE_INCREMENTAL_CONSISTENCY = true;
+        PelletOptions.PROCESS_JENA_UPDATES_INCREMENTALLY = true;
+    }
+
+    private final com.hp.hpl.jena.ontology.OntModel pelletModel;
+
+    /**
+     * Constructs a checker over a copy of the given graph.
+     *
+     * @param graph the ontology and instance triples to check
+     */
+    PelletConsistencyChecker(Graph graph) {
+        com.hp.hpl.jena.graph.Graph base = com.hp.hpl.jena.graph.Factory.createDefaultGraph();
+        copy(graph, base);
+        this.pelletModel = com.hp.hpl.jena.rdf.model.ModelFactory.createOntologyModel(
+                PelletReasonerFactory.THE_SPEC, com.hp.hpl.jena.rdf.model.ModelFactory.createModelForGraph(base));
+    }
+
+    /**
+     * Checks the consistency of all triples loaded so far. After {@link #add(Graph)} only
+     * the changes are processed.
+     *
+     * @return true if the knowledge base is consistent
+     */
+    boolean isConsistent() {
+        return ((PelletInfGraph) pelletModel.getGraph()).isConsistent();
+    }
+
+    /**
+     * Adds triples, typically ABox assertions, to the knowledge base.
+     *
+     * @param graph the triples to add
+     */
+    void add(Graph graph) {
+        copy(graph, pelletModel.getGraph());
+    }
+
+    private static void copy(Graph source, com.hp.hpl.jena.graph.Graph target) {
+        ExtendedIterator<Triple> it = source.find(Node.ANY, Node.ANY, Node.ANY);
+        try {
+            while (it.hasNext()) {
+                Triple t = it.next();
+                target.add(com.hp.hpl.jena.graph.Triple.create(
+                        convert(t.getSubject()), convert(t.getPredicate()), convert(t.getObject())));
+            }
+        } finally {
+            it.close();
+        }
+    }
+
+    /**
+     * Converts a Jena node to its Jena 2 equivalent. Plain literals, which Jena 4 types as
+     * {@code xsd:string}, become untyped Jena 2 literals.
+     */
+    static com.hp.hpl.jena.graph.Node convert(Node node) {
+        if (node.isURI()) {
+            return com.hp.hpl.jena.graph.Node.createURI(node.getURI());
+        }
+        if (node.isBlank()) {
+            return com.hp.hpl.jena.graph.Node.createAnon(new AnonId(node.getBlankNodeLabel()));
+        }
+        String lexical = node.getLiteralLexicalForm();
+        String lang = node.getLiteralLanguage();
+        if (lang != null && !lang.isEmpty()) {
+            return com.hp.hpl.jena.graph.Node.createLiteral(lexical, lang, false);
+        }
+        String datatype = node.getLiteralDatatypeURI();
+        if (datatype == null || XSDDatatype.XSDstring.getURI().equals(datatype)) {
+            return com.hp.hpl.jena.graph.Node.createLiteral(lexical);
+        }
+        return com.hp.hpl.jena.graph.Node.createLiteral(lexical, null,
+                TypeMapper.getInstance().getSafeTypeByName(datatype));
+    }
+}
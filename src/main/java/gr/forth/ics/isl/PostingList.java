@@ -0,0 +1,222 @@
+package gr.forth.ics.isl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Immutable sorted set of integer IDs, compressed as variable-length encoded deltas.
+ * A skip entry every {@value #SKIP_INTERVAL} values keeps membership tests logarithmic.
+ */
+public final class PostingList {
+
+    /**
+     * Number of values between two skip entries.
+     */
+    static final int SKIP_INTERVAL = 64;
+
+    /**
+     * The empty posting list.
+     */
+    public static final PostingList EMPTY = new PostingList(new byte[0], 0, new int[0], new int[0]);
+
+    private final byte[] data;
+    private final int size;
+    private final int[] skipValues;
+    private final int[] skipOffsets;
+
+    private PostingList(byte[] data, int size, int[] skipValues, int[] skipOffsets) {
+        this.data = data;
+        this.size = size;
+        this.skipValues = skipValues;
+        this.skipOffsets = skipOffsets;
+    }
+
+    /**
+     * Builds a posting list from arbitrary IDs; duplicates are removed.
+     *
+     * @param ids the IDs, in any order
+     * @param length the number of valid entries in {@code ids}
+     * @return the posting list
+     */
+    public static PostingList of(int[] ids, int length) {
+        int[] sorted = Arrays.copyOf(ids, length);
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        return fromSorted(sorted, unique);
+    }
+
+    /**
+     * Builds a posting list from the bits set in a bit set.
+     *
+     * @param bits the IDs as a bit set
+     * @return the posting list
+     */
+    public static PostingList of(BitSet bits) {
+        int[] ids = new int[bits.cardinality()];
+        int n = 0;
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            ids[n++] = id;
+        }
+        return fromSorted(ids, n);
+    }
+
+    private static PostingList fromSorted(int[] ids, int length) {
+        if (length == 0) {
+            return EMPTY;
+        }
+        byte[] data = new byte[length * 2];
+        int skips = (length + SKIP_INTERVAL - 1) / SKIP_INTERVAL;
+        int[] skipValues = new int[skips];
+        int[] skipOffsets = new int[skips];
+        int pos = 0;
+        int previous = 0;
+        for (int i = 0; i < length; i++) {
+            if (data.length - pos < 5) {
+                data = Arrays.copyOf(data, data.length * 2 + 5);
+            }
+            int delta;
+            if (i % SKIP_INTERVAL == 0) {
+                // Each block starts with an absolute value so it can be decoded on its own
+                skipValues[i / SKIP_INTERVAL] = ids[i];
+                skipOffsets[i / SKIP_INTERVAL] = pos;
+                delta = ids[i];
+            } else {
+                delta = ids[i] - previous;
+            }
+            pos = writeVarInt(data, pos, delta);
+            previous = ids[i];
+        }
+        return new PostingList(Arrays.copyOf(data, pos), length, skipValues, skipOffsets);
+    }
+
+    private static int writeVarInt(byte[] data, int pos, int value) {
+        while ((value & ~0x7f) != 0) {
+            data[pos++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        data[pos++] = (byte) value;
+        return pos;
+    }
+
+    /**
+     * @return the number of IDs in the list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the list holds no IDs
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of bytes used by the compressed IDs
+     */
+    public int compressedBytes() {
+        return data.length;
+    }
+
+    /**
+     * Checks whether the list holds an ID.
+     *
+     * @param id the ID to look for
+     * @return true if the ID is in the list
+     */
+    public boolean contains(int id) {
+        int block = Arrays.binarySearch(skipValues, id);
+        if (block >= 0) {
+            return true;
+        }
+        block = -block - 2;
+        if (block < 0) {
+            return false;
+        }
+        PrimitiveIterator.OfInt it = new Decoder(block);
+        int remaining = Math.min(SKIP_INTERVAL, size - block * SKIP_INTERVAL);
+        for (int i = 0; i < remaining; i++) {
+            int value = it.nextInt();
+            if (value >= id) {
+                return value == id;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return an iterator over the IDs in ascending order
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new Decoder(0);
+    }
+
+    /**
+     * Adds all IDs of this list to a bit set.
+     *
+     * @param bits the bit set to add to
+     */
+    public void addTo(BitSet bits) {
+        PrimitiveIterator.OfInt it = iterator();
+        while (it.hasNext()) {
+            bits.set(it.nextInt());
+        }
+    }
+
+    /**
+     * @return the IDs as an array in ascending order
+     */
+    public int[] toArray() {
+        int[] ids = new int[size];
+        PrimitiveIterator.OfInt it = iterator();
+        for (int i = 0; i < size; i++) {
+            ids[i] = it.nextInt();
+        }
+        return ids;
+    }
+
+    /**
+     * Iterator decoding the IDs starting at a skip block.
+     */
+    private final class Decoder implements PrimitiveIterator.OfInt {
+        private int pos;
+        private int index;
+        private int previous;
+
+        Decoder(int block) {
+            this.pos = block < skipOffsets.length ? skipOffsets[block] : 0;
+            this.index = block * SKIP_INTERVAL;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public int nextInt() {
+            if (index >= size) {
+                throw new NoSuchElementException();
+            }
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous = index % SKIP_INTERVAL == 0 ? value : previous + value;
+            index++;
+            return previous;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package gr.forth.ics.isl;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Result cache with least-recently-used eviction and a time-to-live, for repeated lookups
+ * against a model. The owner calls {@link #invalidate()} whenever the model changes; a result
+ * that was being computed while the model changed is returned but not cached.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the cached results
+ */
+public class QueryCache<K, V> {
+
+    /**
+     * A snapshot of the cache statistics.
+     */
+    public static final class Stats {
+
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+        private final int size;
+
+        Stats(long hits, long misses, long evictions, long invalidations, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+            this.size = size;
+        }
+
+        /**
+         * @return the number of lookups answered from the cache
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * @return the number of lookups that had to be computed
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return the fraction of lookups answered from the cache, or 0 if there were none
+         */
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        /**
+         * @return the number of entries evicted for size or age
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * @return the number of times the whole cache was invalidated
+         */
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        /**
+         * @return the number of cached entries
+         */
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d misses=%d hitRate=%.3f evictions=%d invalidations=%d size=%d",
+                    hits, misses, getHitRate(), evictions, invalidations, size);
+        }
+    }
+
+    private static final class Entry<V> {
+
+        final V value;
+        final long expires;
+
+        Entry(V value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Constructs a QueryCache.
+     *
+     * @param maxEntries the maximum number of cached results
+     * @param ttl        how long a result stays valid
+     */
+    public QueryCache(int maxEntries, Duration ttl) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The maximum number of entries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the cached result for a key, computing and caching it if it is missing or expired.
+     * The result is computed without holding the cache lock.
+     *
+     * @param key     the key
+     * @param compute computes the result
+     * @return the result
+     */
+    public V get(K key, Supplier<V> compute) {
+        long computedIn;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expires < 0) {
+                    hits++;
+                    return entry.value;
+                }
+                entries.remove(key);
+                evictions++;
+            }
+            misses++;
+            computedIn = generation;
+        }
+        V value = compute.get();
+        synchronized (this) {
+            if (computedIn == generation) {
+                entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+                evictOldest();
+            }
+        }
+        return value;
+    }
+
+    private void evictOldest() {
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Drops all cached results.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        if (!entries.isEmpty()) {
+            entries.clear();
+        }
+        invalidations++;
+    }
+
+    /**
+     * @return a snapshot of the cache statistics
+     */
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, invalidations, entries.size());
+    }
+}
@@ -0,0 +1,538 @@
+package gr.forth.ics.isl;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jena.graph.Node;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded HTTP service answering schema and instance queries over resident models.
+ * Schemas and instance datasets are loaded once at startup and shared by all requests.
+ *
+ * <p>Endpoints (all responses are JSON, listings are streamed):</p>
+ * <ul>
+ *   <li>{@code GET /classes?schema=}: all classes of a schema</li>
+ *   <li>{@code GET /properties?schema=}: all properties of a schema</li>
+ *   <li>{@code GET /range?schema=&class=}: properties having the class as their range</li>
+ *   <li>{@code GET /domain?schema=&class=}: domain classes of properties having the class as their range</li>
+ *   <li>{@code GET /instances?data=[&class=]}: classes of a dataset, or instances and labels of one class</li>
+ *   <li>{@code POST /classify[?ext=]}: format and schema detection for the posted document</li>
+ *   <li>{@code POST /batch}: one request path per line, answered in a single streamed array</li>
+ *   <li>{@code GET /metrics}: per-endpoint request counts and latencies</li>
+ * </ul>
+ *
+ * Requests run on virtual threads when the JVM provides them (Java 21+), and on a cached
+ * thread pool otherwise.
+ */
+public class QueryServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryServer.class);
+
+    /**
+     * Default limit of the request body size, in bytes.
+     */
+    public static final int DEFAULT_MAX_BODY_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * A query endpoint writing its JSON result to the response.
+     */
+    @FunctionalInterface
+    interface Endpoint {
+        void handle(Map<String, String> params, String body, Writer out) throws IOException;
+    }
+
+    /**
+     * Latency statistics of a single endpoint.
+     */
+    static final class EndpointMetrics {
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos, boolean error) {
+            requests.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            if (error) {
+                errors.increment();
+            }
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, OntologyReasoner> schemas = new ConcurrentHashMap<>();
+    private final Map<String, InstanceFetcher> datasets = new ConcurrentHashMap<>();
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+    private final Map<String, EndpointMetrics> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * The largest request body accepted, in bytes; larger bodies are answered with 413.
+     */
+    private volatile int maxBodyBytes = DEFAULT_MAX_BODY_BYTES;
+
+    /**
+     * Constructs a QueryServer bound to the given address. The server is not started.
+     *
+     * @param address the address to listen on
+     * @throws IOException if the server socket cannot be bound
+     */
+    public QueryServer(InetSocketAddress address) throws IOException {
+        this.server = HttpServer.create(address, 0);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+
+        endpoints.put("/classes", (params, body, out) -> writeArray(out, uris(schema(params)::forEachClass)));
+        endpoints.put("/properties", (params, body, out) -> writeArray(out, uris(schema(params)::forEachProperty)));
+        endpoints.put("/range", (params, body, out) -> writeArray(out,
+                exclusive(schema(params), reasoner -> reasoner.listProperties(required(params, "class")))));
+        endpoints.put("/domain", (params, body, out) -> writeArray(out,
+                exclusive(schema(params), reasoner -> reasoner.listObjects(required(params, "class")))));
+        endpoints.put("/instances", this::instances);
+        endpoints.put("/classify", this::classify);
+        endpoints.put("/batch", this::batch);
+        endpoints.put("/metrics", (params, body, out) -> writeMetrics(out));
+
+        for (String path : endpoints.keySet()) {
+            metrics.put(path, new EndpointMetrics());
+            server.createContext(path, exchange -> serve(path, exchange));
+        }
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor when available, falling back to a cached pool.
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Loads a schema file and keeps it resident under the given name.
+     *
+     * @param name the name the schema is queried by
+     * @param file the schema file
+     * @throws IOException if the file cannot be read
+     */
+    public void addSchema(String name, File file) throws IOException {
+        OntologyReasoner reasoner = new OntologyReasoner();
+        reasoner.initiateModel(file);
+        schemas.put(name, reasoner);
+    }
+
+    /**
+     * Loads an instance file and keeps it resident under the given name.
+     *
+     * @param name the name the dataset is queried by
+     * @param file the instance file
+     * @throws IOException if the file cannot be read
+     */
+    public void addInstances(String name, File file) throws IOException {
+        datasets.put(name, new InstanceFetcher(file));
+    }
+
+    /**
+     * Sets the largest request body the server accepts. Requests with larger bodies, such as
+     * documents posted to {@code /classify}, are rejected with status 413 before being parsed.
+     *
+     * @param maxBodyBytes the limit in bytes, {@link #DEFAULT_MAX_BODY_BYTES} by default
+     */
+    public void setMaxBodyBytes(int maxBodyBytes) {
+        if (maxBodyBytes < 0) {
+            throw new IllegalArgumentException("The body size limit must not be negative: " + maxBodyBytes);
+        }
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * Starts serving requests.
+     */
+    public void start() {
+        server.start();
+        logger.info("Query server listening on {}", server.getAddress());
+    }
+
+    /**
+     * Stops the server, waiting at most the given number of seconds for running exchanges.
+     *
+     * @param delaySeconds the maximum time to wait
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * @return the address the server is bound to
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    private void serve(String path, HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        boolean error = false;
+        ResponseWriter out = new ResponseWriter(exchange);
+        try {
+            URI uri = exchange.getRequestURI();
+            if (!uri.getPath().equals(path)) {
+                error = true;
+                out.fail(404, "Unknown endpoint: " + uri.getPath());
+                return;
+            }
+            String body = readBody(exchange.getRequestBody(), maxBodyBytes);
+            endpoints.get(path).handle(parseQuery(uri.getRawQuery()), body, out);
+        } catch (BodyTooLargeException e) {
+            error = true;
+            out.fail(413, e.getMessage());
+        } catch (IllegalArgumentException | org.apache.jena.shared.JenaException e) {
+            error = true;
+            out.fail(400, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            error = true;
+            logger.error("Error serving " + path, e);
+            out.fail(500, e.toString());
+        } finally {
+            out.close();
+            metrics.get(path).record(System.nanoTime() - start, error);
+        }
+    }
+
+    private OntologyReasoner schema(Map<String, String> params) {
+        String name = required(params, "schema");
+        OntologyReasoner reasoner = schemas.get(name);
+        if (reasoner == null) {
+            throw new IllegalArgumentException("Unknown schema: " + name);
+        }
+        return reasoner;
+    }
+
+    /**
+     * Collects the URIs of the nodes a graph-level visitor of a schema visits, which is safe
+     * from concurrent requests; blank nodes are listed as null, as by the view-based listings.
+     */
+    private static Collection<String> uris(Consumer<Consumer<Node>> forEach) {
+        Set<String> uris = new HashSet<>();
+        forEach.accept(node -> uris.add(node.isURI() ? node.getURI() : null));
+        return uris;
+    }
+
+    /**
+     * Runs a query over the ontology views of a schema while no other request queries them:
+     * the views share an unsynchronised node cache, so even concurrent readers are unsafe.
+     */
+    private static Collection<String> exclusive(OntologyReasoner reasoner, Function<OntologyReasoner, Collection<String>> query) {
+        synchronized (reasoner) {
+            return query.apply(reasoner);
+        }
+    }
+
+    private void instances(Map<String, String> params, String body, Writer out) throws IOException {
+        String name = required(params, "data");
+        InstanceFetcher fetcher = datasets.get(name);
+        if (fetcher == null) {
+            throw new IllegalArgumentException("Unknown dataset: " + name);
+        }
+        String classUri = params.get("class");
+        if (classUri == null) {
+            writeArray(out, fetcher.getClassUris());
+            return;
+        }
+        Collection<Pair<String, String>> instances = fetcher.getInstanceUris(classUri);
+        StringBuilder item = new StringBuilder();
+        out.write('[');
+        Iterator<Pair<String, String>> it = instances.iterator();
+        while (it.hasNext()) {
+            Pair<String, String> instance = it.next();
+            item.setLength(0);
+            item.append("{\"uri\":");
+            Json.quote(item, instance.getLeft()).append(",\"label\":");
+            Json.quote(item, instance.getRight()).append('}');
+            if (it.hasNext()) {
+                item.append(',');
+            }
+            out.append(item);
+        }
+        out.write(']');
+    }
+
+    private void classify(Map<String, String> params, String body, Writer out) throws IOException {
+        FormatSniffer.Detection detection = FormatSniffer.detect(body);
+        String lang = OntologyReasoner.resolveLang(params.get("ext"), detection);
+        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
+        model.read(new StringReader(body), null, lang);
+        StringBuilder json = new StringBuilder("{\"format\":");
+        Json.quote(json, lang)
+                .append(",\"confidence\":").append(detection == null ? 0 : detection.getConfidence())
+                .append(",\"triples\":").append(model.getGraph().size())
+                .append(",\"schema\":").append(new OntologyIdentifier().isSchema(model))
+                .append('}');
+        out.append(json);
+    }
+
+    /**
+     * Answers several GET requests, one path with query string per line of the body, in one response.
+     * Each element of the streamed array holds the request and either its result or its error.
+     */
+    private void batch(Map<String, String> params, String body, Writer out) throws IOException {
+        out.write('[');
+        boolean first = true;
+        BufferedReader lines = new BufferedReader(new StringReader(body));
+        String line;
+        while ((line = lines.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            out.append(Json.quote(new StringBuilder("{\"request\":"), line)).append(",");
+
+            long start = System.nanoTime();
+            // Buffer each result so that a failing request yields an error entry instead of broken JSON
+            StringWriter result = new StringWriter();
+            EndpointMetrics endpointMetrics = null;
+            String failure = null;
+            try {
+                URI uri = URI.create(line);
+                String path = uri.getPath();
+                Endpoint endpoint = path == null ? null : endpoints.get(path);
+                if (endpoint == null || path.equals("/batch") || path.equals("/classify")) {
+                    throw new IllegalArgumentException("Endpoint cannot be batched: " + path);
+                }
+                endpointMetrics = metrics.get(path);
+                endpoint.handle(parseQuery(uri.getRawQuery()), "", result);
+            } catch (IllegalArgumentException | org.apache.jena.shared.JenaException e) {
+                failure = e.getMessage();
+            } catch (RuntimeException e) {
+                logger.error("Error serving batched request " + line, e);
+                failure = e.toString();
+            }
+            if (failure == null) {
+                out.append("\"result\":").append(result.getBuffer()).append('}');
+            } else {
+                out.append(Json.quote(new StringBuilder("\"error\":"), failure)).append('}');
+            }
+            if (endpointMetrics != null) {
+                endpointMetrics.record(System.nanoTime() - start, failure != null);
+            }
+        }
+        out.write(']');
+    }
+
+    private void writeMetrics(Writer out) throws IOException {
+        StringBuilder json = new StringBuilder("{");
+        boolean first = true;
+        for (Map.Entry<String, EndpointMetrics> entry : new LinkedHashMap<>(metrics).entrySet()) {
+            EndpointMetrics m = entry.getValue();
+            long requests = m.requests.sum();
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            Json.quote(json, entry.getKey())
+                    .append(":{\"requests\":").append(requests)
+                    .append(",\"errors\":").append(m.errors.sum())
+                    .append(",\"meanMicros\":").append(requests == 0 ? 0 : m.totalNanos.sum() / requests / 1000)
+                    .append(",\"maxMicros\":").append(m.maxNanos.get() / 1000)
+                    .append('}');
+        }
+        out.append(json.append('}'));
+    }
+
+    private static void writeArray(Writer out, Collection<String> values) throws IOException {
+        StringBuilder item = new StringBuilder();
+        out.write('[');
+        Iterator<String> it = values.iterator();
+        while (it.hasNext()) {
+            item.setLength(0);
+            Json.quote(item, it.next());
+            if (it.hasNext()) {
+                item.append(',');
+            }
+            out.append(item);
+        }
+        out.write(']');
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing query parameter: " + name);
+        }
+        return value;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String readBody(InputStream in, int maxBytes) throws IOException {
+        try (InputStream body = in) {
+            byte[] bytes = body.readNBytes(maxBytes + 1);
+            if (bytes.length > maxBytes) {
+                throw new BodyTooLargeException("The request body exceeds " + maxBytes + " bytes");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Thrown when a request body exceeds the size limit of the server.
+     */
+    private static final class BodyTooLargeException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        BodyTooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Writer that sends the response headers on the first write, so that errors raised before
+     * any output can still be reported with a proper status code. The body is sent chunked.
+     */
+    private static final class ResponseWriter extends Writer {
+        private final HttpExchange exchange;
+        private Writer delegate;
+
+        ResponseWriter(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        private Writer delegate() throws IOException {
+            if (delegate == null) {
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                exchange.sendResponseHeaders(200, 0);
+                OutputStream body = exchange.getResponseBody();
+                delegate = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8), 16 * 1024);
+            }
+            return delegate;
+        }
+
+        void fail(int status, String message) throws IOException {
+            if (delegate != null) {
+                // Headers are gone already; the truncated body signals the failure
+                return;
+            }
+            byte[] json = Json.quote(new StringBuilder("{\"error\":"), message).append('}').toString()
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, json.length);
+            delegate = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8);
+            exchange.getResponseBody().write(json);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            delegate().write(cbuf, off, len);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            delegate().write(c);
+        }
+
+        @Override
+        public Writer append(CharSequence csq) throws IOException {
+            delegate().append(csq);
+            return this;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate().flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate().close();
+            exchange.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        Map<String, String> schemaFiles = new LinkedHashMap<>();
+        Map<String, String> dataFiles = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String[] named;
+            switch (args[i]) {
+                case "-p":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "-s":
+                    named = args[++i].split("=", 2);
+                    schemaFiles.put(named[0], named[1]);
+                    break;
+                case "-d":
+                    named = args[++i].split("=", 2);
+                    dataFiles.put(named[0], named[1]);
+                    break;
+                default:
+                    System.err.println("Usage: QueryServer [-p port] [-s name=schemaFile]... [-d name=instanceFile]...");
+                    System.exit(2);
+            }
+        }
+        QueryServer server = new QueryServer(new InetSocketAddress(port));
+        for (Map.Entry<String, String> schema : schemaFiles.entrySet()) {
+            server.addSchema(schema.getKey(), new File(schema.getValue()));
+        }
+        for (Map.Entry<String, String> data : dataFiles.entrySet()) {
+            server.addInstances(data.getKey(), new File(data.getValue()));
+        }
+        server.start();
+    }
+}
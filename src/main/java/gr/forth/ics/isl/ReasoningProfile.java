@@ -0,0 +1,49 @@
+package gr.forth.ics.isl;
+
+import org.apache.jena.ontology.OntModelSpec;
+
+/**
+ * Reasoning profiles an {@link OntologyReasoner} can load and validate ontologies with,
+ * ordered roughly by cost. All Jena rule profiles infer while querying; {@link #PELLET}
+ * keeps the model inference-free and uses Pellet only for consistency checking.
+ */
+public enum ReasoningProfile {
+
+    /**
+     * No inference and no validation; every model that parses is accepted.
+     */
+    NONE(OntModelSpec.OWL_MEM),
+
+    /**
+     * Jena's RDFS rule reasoner.
+     */
+    RDFS(OntModelSpec.OWL_MEM_RDFS_INF),
+
+    /**
+     * Jena's OWL micro rule reasoner (RDFS plus the most useful OWL constructs).
+     */
+    OWL_MICRO(OntModelSpec.OWL_MEM_MICRO_RULE_INF),
+
+    /**
+     * Jena's OWL mini rule reasoner.
+     */
+    OWL_MINI(OntModelSpec.OWL_MEM_MINI_RULE_INF),
+
+    /**
+     * Pellet tableau reasoner for complete OWL DL consistency checking, incremental for ABox additions.
+     */
+    PELLET(OntModelSpec.OWL_MEM);
+
+    private final OntModelSpec spec;
+
+    ReasoningProfile(OntModelSpec spec) {
+        this.spec = spec;
+    }
+
+    /**
+     * @return the specification ontology models are created with under this profile
+     */
+    public OntModelSpec getSpec() {
+        return spec;
+    }
+}
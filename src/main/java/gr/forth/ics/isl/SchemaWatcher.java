@@ -0,0 +1,377 @@
+package gr.forth.ics.isl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.compose.MultiUnion;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+/**
+ * Class for keeping an ontology view up to date with schema files that are edited on disk.
+ *
+ * <p>Changed files are detected with a {@link WatchService}. Only those files are parsed again;
+ * their triples are compared with the previous version and the triple-level {@link Diff} is
+ * handed to listeners, so that derived indexes can be patched instead of rebuilt. Each change
+ * publishes a new immutable {@link View} through an atomic reference: readers keep using the
+ * view they obtained from {@link #current()} undisturbed, and graphs of unchanged files are
+ * shared between consecutive views rather than copied.</p>
+ */
+public class SchemaWatcher implements AutoCloseable {
+
+    /**
+     * How long to wait for further events after a change, so that the several events an
+     * editor produces for one save are handled as a single reload.
+     */
+    private static final long SETTLE_MILLIS = 100;
+
+    /**
+     * An immutable snapshot of the watched schema files.
+     */
+    public static final class View {
+
+        private final long version;
+        private final Map<Path, Graph> graphs;
+        private final OntologyReasoner reasoner;
+
+        View(long version, Map<Path, Graph> graphs, ReasoningProfile profile, TermDictionary dictionary) {
+            this.version = version;
+            this.graphs = Collections.unmodifiableMap(graphs);
+            MultiUnion union = new MultiUnion(graphs.values().iterator());
+            OntModel model = ModelFactory.createOntologyModel(profile.getSpec(),
+                    ModelFactory.createModelForGraph(union));
+            this.reasoner = new OntologyReasoner(profile, dictionary);
+            this.reasoner.setModel(model);
+        }
+
+        /**
+         * @return the version of the view, incremented with every published change
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return the graph of every watched file
+         */
+        public Map<Path, Graph> getGraphs() {
+            return graphs;
+        }
+
+        /**
+         * @return a reasoner over the union of all watched files; its term IDs are shared by all views
+         */
+        public OntologyReasoner getReasoner() {
+            return reasoner;
+        }
+    }
+
+    /**
+     * The triples added to and removed from a file by a change. Blank nodes are relabelled on
+     * every parse, so triples with blank nodes appear in both sets whenever their file changes.
+     */
+    public static final class Diff {
+
+        private final Path file;
+        private final Graph added;
+        private final Graph removed;
+
+        Diff(Path file, Graph added, Graph removed) {
+            this.file = file;
+            this.added = added;
+            this.removed = removed;
+        }
+
+        /**
+         * @return the changed file
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * @return the triples the change added
+         */
+        public Graph getAdded() {
+            return added;
+        }
+
+        /**
+         * @return the triples the change removed
+         */
+        public Graph getRemoved() {
+            return removed;
+        }
+
+        /**
+         * @return true if the change did not alter any triple
+         */
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    /**
+     * Receives the changes published by a SchemaWatcher.
+     */
+    public interface Listener {
+
+        /**
+         * Called after a new view has been published.
+         *
+         * @param previous the view before the change
+         * @param current  the newly published view
+         * @param diffs    the per-file changes between the two views
+         */
+        void schemaChanged(View previous, View current, List<Diff> diffs);
+
+        /**
+         * Called when a changed file cannot be parsed. The previous version of the file stays in effect.
+         *
+         * @param file  the file
+         * @param error the parse error
+         */
+        default void reloadFailed(Path file, Exception error) {
+        }
+    }
+
+    private final Path directory;
+    private final ReasoningProfile profile;
+    private final AtomicReference<View> view = new AtomicReference<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<Path, Long> checksums = new HashMap<>();
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Constructs a SchemaWatcher and loads every schema file of a directory.
+     *
+     * @param directory the directory holding the schema files
+     * @param profile   the reasoning profile of the published views
+     * @throws IOException if the directory or one of its files cannot be read
+     */
+    public SchemaWatcher(Path directory, ReasoningProfile profile) throws IOException {
+        this.directory = directory;
+        this.profile = profile;
+        Map<Path, Graph> graphs = new LinkedHashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (isSchemaFile(file)) {
+                    graphs.put(file, parse(file, Files.readAllBytes(file)));
+                }
+            }
+        }
+        view.set(new View(0, graphs, profile, new TermDictionary()));
+    }
+
+    /**
+     * Constructs a SchemaWatcher without inference.
+     *
+     * @param directory the directory holding the schema files
+     * @throws IOException if the directory or one of its files cannot be read
+     */
+    public SchemaWatcher(Path directory) throws IOException {
+        this(directory, ReasoningProfile.NONE);
+    }
+
+    /**
+     * @return the current view; it stays valid and unchanged however the files change later
+     */
+    public View current() {
+        return view.get();
+    }
+
+    /**
+     * @param listener the listener to notify of changes
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Starts watching the directory on a background thread.
+     *
+     * @throws IOException if the directory cannot be watched
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            return;
+        }
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        thread = new Thread(this::watch, "schema-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                Set<Path> changed = new LinkedHashSet<>();
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            // Events were lost: check every file
+                            changed.addAll(current().getGraphs().keySet());
+                            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                                files.forEach(changed::add);
+                            } catch (IOException e) {
+                                // The files seen so far are still checked
+                            }
+                        } else {
+                            changed.add(directory.resolve((Path) event.context()));
+                        }
+                    }
+                    key.reset();
+                    key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                refresh(changed);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    /**
+     * Reloads the given files and publishes a new view if any of their triples changed.
+     * Files that no longer exist are removed from the view. This is what the watch thread
+     * does for every batch of file events, and can also be called directly.
+     *
+     * @param files the files that may have changed
+     * @return the diffs of the files that changed
+     */
+    public synchronized List<Diff> refresh(Set<Path> files) {
+        View previous = view.get();
+        Map<Path, Graph> graphs = new LinkedHashMap<>(previous.getGraphs());
+        List<Diff> diffs = new ArrayList<>();
+        for (Path file : files) {
+            Graph before = graphs.get(file);
+            Graph after;
+            if (!Files.exists(file) || !isSchemaFile(file)) {
+                if (before == null) {
+                    continue;
+                }
+                graphs.remove(file);
+                checksums.remove(file);
+                after = GraphFactory.createDefaultGraph();
+            } else {
+                try {
+                    byte[] content = Files.readAllBytes(file);
+                    if (before != null && Long.valueOf(checksum(content)).equals(checksums.get(file))) {
+                        continue;
+                    }
+                    after = parse(file, content);
+                } catch (IOException | RuntimeException e) {
+                    for (Listener listener : listeners) {
+                        listener.reloadFailed(file, e);
+                    }
+                    continue;
+                }
+                graphs.put(file, after);
+            }
+            Diff diff = diff(file, before == null ? GraphFactory.createDefaultGraph() : before, after);
+            if (!diff.isEmpty()) {
+                diffs.add(diff);
+            }
+        }
+        if (diffs.isEmpty()) {
+            return diffs;
+        }
+        View current = new View(previous.getVersion() + 1, graphs, profile, previous.getReasoner().getDictionary());
+        view.set(current);
+        for (Listener listener : listeners) {
+            listener.schemaChanged(previous, current, diffs);
+        }
+        return diffs;
+    }
+
+    /**
+     * Computes the triples added and removed between two versions of a file.
+     *
+     * @param file   the file
+     * @param before the previous version
+     * @param after  the new version
+     * @return the diff
+     */
+    static Diff diff(Path file, Graph before, Graph after) {
+        return new Diff(file, difference(after, before), difference(before, after));
+    }
+
+    private static Graph difference(Graph left, Graph right) {
+        Graph result = GraphFactory.createDefaultGraph();
+        ExtendedIterator<Triple> it = left.find(Node.ANY, Node.ANY, Node.ANY);
+        try {
+            while (it.hasNext()) {
+                Triple t = it.next();
+                if (!right.contains(t)) {
+                    result.add(t);
+                }
+            }
+        } finally {
+            it.close();
+        }
+        return result;
+    }
+
+    private static boolean isSchemaFile(Path file) {
+        String name = file.getFileName().toString();
+        return !name.startsWith(".") && OntologyReasoner.langs.containsKey(CompressedInput.formatExtension(name));
+    }
+
+    /**
+     * Checksums file contents, so that saves without changes are not parsed again.
+     */
+    private static long checksum(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    private Graph parse(Path file, byte[] content) throws IOException {
+        Graph graph = GraphFactory.createDefaultGraph();
+        try (InputStream in = CompressedInput.open(new ByteArrayInputStream(content))) {
+            String lang = OntologyReasoner.resolveLang(file.getFileName().toString(), FormatSniffer.detect(in));
+            ModelFactory.createModelForGraph(graph).read(in, file.toUri().toString(), lang);
+        }
+        checksums.put(file, checksum(content));
+        return graph;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            thread.interrupt();
+            watchService = null;
+            thread = null;
+        }
+    }
+}
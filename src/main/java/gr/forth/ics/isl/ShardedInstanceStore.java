@@ -0,0 +1,265 @@
+package gr.forth.ics.isl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jena.ext.com.google.common.collect.ArrayListMultimap;
+import org.apache.jena.ext.com.google.common.collect.Multimap;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.graph.GraphReadOnly;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDF;
+
+/**
+ * Read-only copy of an instance graph split into independently indexed in-memory shards. All
+ * triples of a subject go to the same shard, chosen by the subject's primary {@code rdf:type}
+ * or by a hash of the subject, so instance lookups and label lookups stay within one shard.
+ * Lookups by class only search the shards holding instances of the class, and scans over the
+ * whole data run on all shards in parallel.
+ *
+ * <p>The store is a snapshot of the source graph; later changes to the source are not seen.</p>
+ */
+public class ShardedInstanceStore {
+
+    /**
+     * How the subjects are assigned to shards.
+     */
+    public enum Partitioning {
+        /**
+         * By the first {@code rdf:type} of the subject, so that the instances of a class mostly
+         * share a shard. Untyped subjects are assigned by hash.
+         */
+        PRIMARY_TYPE,
+        /**
+         * By a hash of the subject, which spreads the subjects evenly regardless of their classes.
+         */
+        SUBJECT_HASH
+    }
+
+    private final Graph[] shards;
+
+    /**
+     * The shards holding instances of each class.
+     */
+    private final Map<Node, BitSet> classShards;
+
+    private ShardedInstanceStore(Graph[] shards, Map<Node, BitSet> classShards) {
+        this.shards = shards;
+        this.classShards = classShards;
+    }
+
+    /**
+     * Copies a graph into a sharded store.
+     *
+     * @param graph        the instance graph
+     * @param shardCount   the number of shards
+     * @param partitioning how subjects are assigned to shards
+     * @return the store
+     */
+    public static ShardedInstanceStore build(Graph graph, int shardCount, Partitioning partitioning) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("The number of shards must be positive: " + shardCount);
+        }
+        Node type = RDF.type.asNode();
+        Map<Node, Node> primaryTypes = new HashMap<>();
+        if (partitioning == Partitioning.PRIMARY_TYPE) {
+            ExtendedIterator<Triple> types = graph.find(Node.ANY, type, Node.ANY);
+            try {
+                while (types.hasNext()) {
+                    Triple t = types.next();
+                    primaryTypes.putIfAbsent(t.getSubject(), t.getObject());
+                }
+            } finally {
+                types.close();
+            }
+        }
+
+        Graph[] shards = new Graph[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = GraphFactory.createGraphMem();
+        }
+        Map<Node, BitSet> classShards = new HashMap<>();
+        ExtendedIterator<Triple> it = graph.find(Node.ANY, Node.ANY, Node.ANY);
+        try {
+            while (it.hasNext()) {
+                Triple t = it.next();
+                Node primaryType = primaryTypes.get(t.getSubject());
+                int shard = Math.floorMod((primaryType != null ? primaryType : t.getSubject()).hashCode(), shardCount);
+                shards[shard].add(t);
+                if (type.equals(t.getPredicate())) {
+                    classShards.computeIfAbsent(t.getObject(), c -> new BitSet(shardCount)).set(shard);
+                }
+            }
+        } finally {
+            it.close();
+        }
+        return new ShardedInstanceStore(shards, classShards);
+    }
+
+    /**
+     * @return the number of shards
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @param shard the index of the shard
+     * @return a read-only view of the shard
+     */
+    public Graph getShard(int shard) {
+        return new GraphReadOnly(shards[shard]);
+    }
+
+    /**
+     * @return the number of triples in all shards
+     */
+    public long size() {
+        long size = 0;
+        for (Graph shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * @param classUri the URI of the class
+     * @return the indexes of the shards holding instances of the class, in ascending order
+     */
+    public int[] getShardsOf(String classUri) {
+        BitSet bits = classShards.get(NodeFactory.createURI(classUri));
+        return bits == null ? new int[0] : bits.stream().toArray();
+    }
+
+    /**
+     * Retrieves the instance URIs and labels of a class, searching only the shards holding its instances.
+     *
+     * @param classUri the URI of the class
+     * @return pairs of instance URIs and labels, the label being empty for instances without one
+     */
+    public Collection<Pair<String, String>> getInstanceUris(String classUri) {
+        Node cls = NodeFactory.createURI(classUri);
+        BitSet bits = classShards.get(cls);
+        if (bits == null) {
+            return Collections.emptyList();
+        }
+        List<Pair<String, String>> instances = new ArrayList<>();
+        for (int shard = bits.nextSetBit(0); shard >= 0; shard = bits.nextSetBit(shard + 1)) {
+            collectInstances(shards[shard], cls, instances);
+        }
+        return instances;
+    }
+
+    /**
+     * Retrieves all classes and their instances along with the instance labels, scanning the
+     * shards in parallel on the common fork-join pool.
+     *
+     * @return a multimap containing class URIs as keys and pairs of instance URIs and labels as values
+     */
+    public Multimap<String, Pair<String, String>> getClassAndInstanceUris() {
+        return getClassAndInstanceUris(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Retrieves all classes and their instances along with the instance labels, scanning the
+     * shards in parallel on the given pool.
+     *
+     * @param pool the pool running the shard scans
+     * @return a multimap containing class URIs as keys and pairs of instance URIs and labels as values
+     */
+    public Multimap<String, Pair<String, String>> getClassAndInstanceUris(ForkJoinPool pool) {
+        return scan(shard -> {
+            Multimap<String, Pair<String, String>> classAndInstances = ArrayListMultimap.create();
+            ExtendedIterator<Triple> typed = shard.find(Node.ANY, RDF.type.asNode(), Node.ANY);
+            try {
+                while (typed.hasNext()) {
+                    Triple t = typed.next();
+                    Node cls = t.getObject();
+                    classAndInstances.put(cls.isURI() ? cls.getURI() : cls.toString(), instance(shard, t.getSubject()));
+                }
+            } finally {
+                typed.close();
+            }
+            return classAndInstances;
+        }, (a, b) -> {
+            a.putAll(b);
+            return a;
+        }, pool);
+    }
+
+    /**
+     * Runs a computation on every shard in parallel and combines the results. The computation
+     * receives the shard itself and must only read it.
+     *
+     * @param mapper   computes the result of a shard
+     * @param combiner combines the results of two groups of shards, the lower shards first
+     * @param pool     the pool running the computations
+     * @param <R>      the type of the results
+     * @return the combined result
+     */
+    public <R> R scan(Function<Graph, R> mapper, BinaryOperator<R> combiner, ForkJoinPool pool) {
+        return pool.invoke(new ScanTask<>(mapper, combiner, 0, shards.length));
+    }
+
+    /**
+     * Scans a range of shards, halving the range until single shards remain.
+     */
+    private final class ScanTask<R> extends RecursiveTask<R> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Function<Graph, R> mapper;
+        private final BinaryOperator<R> combiner;
+        private final int from;
+        private final int to;
+
+        ScanTask(Function<Graph, R> mapper, BinaryOperator<R> combiner, int from, int to) {
+            this.mapper = mapper;
+            this.combiner = combiner;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from == 1) {
+                return mapper.apply(shards[from]);
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask<R> upper = new ScanTask<>(mapper, combiner, middle, to);
+            upper.fork();
+            R lower = new ScanTask<>(mapper, combiner, from, middle).compute();
+            return combiner.apply(lower, upper.join());
+        }
+    }
+
+    private static void collectInstances(Graph shard, Node cls, Collection<Pair<String, String>> target) {
+        ExtendedIterator<Triple> typed = shard.find(Node.ANY, RDF.type.asNode(), cls);
+        try {
+            while (typed.hasNext()) {
+                target.add(instance(shard, typed.next().getSubject()));
+            }
+        } finally {
+            typed.close();
+        }
+    }
+
+    private static Pair<String, String> instance(Graph shard, Node instance) {
+        return new ImmutablePair<>(instance.isURI() ? instance.getURI() : null, Labels.label(shard, instance));
+    }
+}
@@ -0,0 +1,68 @@
+package gr.forth.ics.isl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Class for running the main entry points of the library once over a set of example files,
+ * so that the classes they load can be recorded in a class data sharing (AppCDS) archive.
+ * Later JVMs started with the archive map those classes instead of loading and verifying
+ * them again, which shortens the time to the first result of a fresh process.
+ *
+ * <p>The archive is created by the {@code cds} build profile ({@code mvn package -Pcds}), or by hand:</p>
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=reasoner.jsa -cp ... gr.forth.ics.isl.StartupWorkload examples
+ * java -XX:SharedArchiveFile=reasoner.jsa -cp ... your.Main
+ * </pre>
+ * <p>Only classes loaded from jar files are archived, and the archive is only used with the
+ * same JDK and a class path starting with the one it was created with.</p>
+ */
+public class StartupWorkload {
+
+    /**
+     * Runs the workload over the files of a directory containing {@code schema.rdfs},
+     * {@code instances.ttl} and {@code instance.rdf}.
+     *
+     * @param args the directory of the example files, {@code examples} if omitted
+     * @throws IOException if an example file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        File dir = new File(args.length > 0 ? args[0] : "examples");
+        run(new File(dir, "schema.rdfs"), new File(dir, "instances.ttl"), new File(dir, "instance.rdf"));
+    }
+
+    /**
+     * Checks a schema and an instance document, loads and lists the schema, and lists the instances.
+     *
+     * @param schema    an RDF/XML schema
+     * @param instances a Turtle instance document
+     * @param instance  an RDF/XML instance document
+     * @throws IOException if a file cannot be read
+     */
+    static void run(File schema, File instances, File instance) throws IOException {
+        OntologyReasoner.disableLogging();
+        String schemaContent = read(schema);
+        new OntologyIdentifier().isSchema(schemaContent, ".rdfs");
+        new OntologyIdentifier().isSchema(read(instance), ".rdf");
+
+        OntologyReasoner reasoner = new OntologyReasoner();
+        reasoner.initiateModel(schema);
+        reasoner.getAllClasses();
+        reasoner.getAllProperties();
+        new OntologyReasoner().initiateModelFileContent(schemaContent, ".rdfs");
+
+        InstanceFetcher fetcher = new InstanceFetcher(instances);
+        fetcher.getClassAndInstanceUris();
+        new InstanceFetcher(read(instance), ".rdf").getClassUris();
+    }
+
+    /**
+     * Reads a file as UTF-8, dropping a leading byte order mark, which the string based entry points reject.
+     */
+    private static String read(File file) throws IOException {
+        String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        return content.startsWith("\uFEFF") ? content.substring(1) : content;
+    }
+}
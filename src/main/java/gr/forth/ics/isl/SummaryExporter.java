@@ -0,0 +1,181 @@
+package gr.forth.ics.isl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDF;
+
+/**
+ * Class for exporting class / instance / label records straight from a graph to a stream,
+ * as JSON Lines or CSV. Records are written while the graph is walked, so memory use does
+ * not grow with the number of instances; only the distinct classes are collected up front.
+ */
+public class SummaryExporter {
+
+    /**
+     * Size of the output buffer, in characters.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The supported output formats.
+     */
+    public enum Format {
+        /**
+         * One JSON object per line with the fields {@code class}, {@code instance} and {@code label}.
+         */
+        JSONL,
+        /**
+         * RFC 4180 CSV with a {@code class,instance,label} header line.
+         */
+        CSV
+    }
+
+    /**
+     * Receives the number of records written so far during an export.
+     */
+    public interface ProgressListener {
+
+        /**
+         * @param records the number of records written so far
+         */
+        void progress(long records);
+    }
+
+    private final Format format;
+    private final ProgressListener listener;
+    private final long interval;
+
+    /**
+     * Constructs a SummaryExporter without progress reporting.
+     *
+     * @param format the output format
+     */
+    public SummaryExporter(Format format) {
+        this(format, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a SummaryExporter.
+     *
+     * @param format   the output format
+     * @param listener the listener notified of progress, may be null
+     * @param interval the number of records between two progress notifications
+     */
+    public SummaryExporter(Format format, ProgressListener listener, long interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("The progress interval must be positive: " + interval);
+        }
+        this.format = format;
+        this.listener = listener;
+        this.interval = interval;
+    }
+
+    /**
+     * Writes one record per typed instance of the graph, grouped by class. The stream is
+     * flushed but not closed.
+     *
+     * @param graph the graph holding the instances
+     * @param out   the stream to write UTF-8 records to
+     * @return the number of records written
+     * @throws IOException if writing fails
+     */
+    public long export(Graph graph, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        StringBuilder line = new StringBuilder(256);
+        if (format == Format.CSV) {
+            writer.write("class,instance,label\r\n");
+        }
+        long records = 0;
+        Node type = RDF.type.asNode();
+        for (Node cls : classes(graph)) {
+            String classUri = cls.isURI() ? cls.getURI() : cls.toString();
+            ExtendedIterator<Triple> instances = graph.find(Node.ANY, type, cls);
+            try {
+                while (instances.hasNext()) {
+                    Node instance = instances.next().getSubject();
+                    line.setLength(0);
+                    appendRecord(line, classUri, instance.isURI() ? instance.getURI() : instance.toString(),
+                            Labels.label(graph, instance));
+                    writer.append(line);
+                    records++;
+                    if (listener != null && records % interval == 0) {
+                        listener.progress(records);
+                    }
+                }
+            } finally {
+                instances.close();
+            }
+        }
+        writer.flush();
+        if (listener != null && records % interval != 0) {
+            listener.progress(records);
+        }
+        return records;
+    }
+
+    private void appendRecord(StringBuilder line, String classUri, String instanceUri, String label) {
+        if (format == Format.JSONL) {
+            line.append("{\"class\":");
+            Json.quote(line, classUri);
+            line.append(",\"instance\":");
+            Json.quote(line, instanceUri);
+            line.append(",\"label\":");
+            Json.quote(line, label);
+            line.append("}\n");
+        } else {
+            csv(line, classUri).append(',');
+            csv(line, instanceUri).append(',');
+            csv(line, label).append("\r\n");
+        }
+    }
+
+    /**
+     * Appends a CSV field, quoting it when it contains a separator, quote or line break.
+     */
+    static StringBuilder csv(StringBuilder out, String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            return out.append(value);
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        return out.append('"');
+    }
+
+    /**
+     * Collects the distinct objects of rdf:type, in order of first occurrence.
+     */
+    private static Set<Node> classes(Graph graph) {
+        Set<Node> classes = new LinkedHashSet<>();
+        ExtendedIterator<Triple> types = graph.find(Node.ANY, RDF.type.asNode(), Node.ANY);
+        try {
+            while (types.hasNext()) {
+                classes.add(types.next().getObject());
+            }
+        } finally {
+            types.close();
+        }
+        return classes;
+    }
+}
@@ -0,0 +1,423 @@
+package gr.forth.ics.isl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jena.ontology.OntDocumentManager;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+
+/**
+ * Class for hosting the models of many tenants under a global heap budget. Each tenant
+ * registers its own set of schema files; its reasoner is loaded on first use and kept
+ * resident while it is among the most recently used tenants that fit in the budget.
+ * Evicted tenants are reloaded from an RDF Thrift snapshot of their model, which is written
+ * on the first load and skips format detection, parsing of the source syntax and fetching
+ * of imports.
+ *
+ * <p>Heap sizes are estimated as in {@link MemoryBudget}. The most recently used tenant is
+ * never evicted, so a single tenant larger than the budget is still served.</p>
+ */
+public class TenantModelManager {
+
+    /**
+     * A snapshot of the residency and load metrics of a tenant.
+     */
+    public static final class TenantStats {
+
+        private final boolean resident;
+        private final long estimatedBytes;
+        private final long hits;
+        private final long loads;
+        private final long snapshotLoads;
+        private final long evictions;
+        private final Duration lastLoadTime;
+        private final Duration totalLoadTime;
+        private final Duration residentTime;
+
+        TenantStats(boolean resident, long estimatedBytes, long hits, long loads, long snapshotLoads,
+                    long evictions, Duration lastLoadTime, Duration totalLoadTime, Duration residentTime) {
+            this.resident = resident;
+            this.estimatedBytes = estimatedBytes;
+            this.hits = hits;
+            this.loads = loads;
+            this.snapshotLoads = snapshotLoads;
+            this.evictions = evictions;
+            this.lastLoadTime = lastLoadTime;
+            this.totalLoadTime = totalLoadTime;
+            this.residentTime = residentTime;
+        }
+
+        /**
+         * @return true if the model of the tenant is in memory
+         */
+        public boolean isResident() {
+            return resident;
+        }
+
+        /**
+         * @return the estimated heap size of the model when it was last loaded
+         */
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
+        /**
+         * @return the number of requests served by a resident model
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * @return the number of times the model was loaded, from its sources or a snapshot
+         */
+        public long getLoads() {
+            return loads;
+        }
+
+        /**
+         * @return the number of loads served from the snapshot
+         */
+        public long getSnapshotLoads() {
+            return snapshotLoads;
+        }
+
+        /**
+         * @return the number of times the model was evicted
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * @return the duration of the last load, or zero if the model was never loaded
+         */
+        public Duration getLastLoadTime() {
+            return lastLoadTime;
+        }
+
+        /**
+         * @return the total duration of all loads
+         */
+        public Duration getTotalLoadTime() {
+            return totalLoadTime;
+        }
+
+        /**
+         * @return the total time the model has been resident, including the current residency
+         */
+        public Duration getResidentTime() {
+            return residentTime;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("resident=%b bytes=%d hits=%d loads=%d snapshotLoads=%d evictions=%d "
+                            + "lastLoad=%dms totalLoad=%dms resident=%dms", resident, estimatedBytes, hits, loads,
+                    snapshotLoads, evictions, lastLoadTime.toMillis(), totalLoadTime.toMillis(), residentTime.toMillis());
+        }
+    }
+
+    /**
+     * The registration and metrics of a tenant. Loads of a tenant are serialised on this object;
+     * the residency fields are guarded by the manager.
+     */
+    private static final class Tenant {
+
+        final String id;
+        final List<File> sources;
+        final Path snapshot;
+
+        volatile OntologyReasoner reasoner;
+        long estimatedBytes;
+        long residentSince;
+        long residentNanos;
+        long hits;
+        long loads;
+        long snapshotLoads;
+        long evictions;
+        long lastLoadNanos;
+        long totalLoadNanos;
+
+        Tenant(String id, List<File> sources, Path snapshot) {
+            this.id = id;
+            this.sources = sources;
+            this.snapshot = snapshot;
+        }
+    }
+
+    private final long maxBytes;
+    private final Path snapshotDirectory;
+    private final ReasoningProfile profile;
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+
+    /**
+     * The resident tenants, least recently used first.
+     */
+    private final LinkedHashMap<String, Tenant> resident = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentBytes;
+
+    /**
+     * Constructs a TenantModelManager without inference.
+     *
+     * @param maxBytes          the estimated heap size all resident models may take together
+     * @param snapshotDirectory the directory model snapshots are written to
+     */
+    public TenantModelManager(long maxBytes, Path snapshotDirectory) {
+        this(maxBytes, snapshotDirectory, ReasoningProfile.NONE);
+    }
+
+    /**
+     * Constructs a TenantModelManager.
+     *
+     * @param maxBytes          the estimated heap size all resident models may take together
+     * @param snapshotDirectory the directory model snapshots are written to
+     * @param profile           the reasoning profile of the tenant reasoners
+     */
+    public TenantModelManager(long maxBytes, Path snapshotDirectory, ReasoningProfile profile) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("The memory budget must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        this.snapshotDirectory = snapshotDirectory;
+        this.profile = profile;
+    }
+
+    /**
+     * Registers a tenant with the schema files its model is loaded from, replacing any
+     * previous registration. The model is not loaded until it is first requested.
+     *
+     * @param tenant  the tenant identifier
+     * @param sources the schema files of the tenant, in any format accepted by
+     *                {@link OntologyReasoner#initiateModel(File)}
+     */
+    public void register(String tenant, List<File> sources) {
+        Tenant registration = new Tenant(tenant, Collections.unmodifiableList(new ArrayList<>(sources)),
+                snapshotDirectory.resolve(ImportResolver.fileName(tenant)));
+        synchronized (this) {
+            Tenant previous = tenants.put(tenant, registration);
+            if (previous != null) {
+                evict(previous);
+                deleteSnapshot(previous);
+            }
+        }
+    }
+
+    /**
+     * Returns the reasoner of a tenant, loading its model if it is not resident and evicting
+     * the least recently used tenants that no longer fit in the budget. The returned reasoner
+     * stays usable after its tenant is evicted, but is no longer accounted for.
+     *
+     * @param tenant the tenant identifier
+     * @return the reasoner over the model of the tenant
+     * @throws IllegalArgumentException if the tenant is not registered
+     * @throws org.apache.jena.shared.JenaException if the model cannot be loaded
+     */
+    public OntologyReasoner getReasoner(String tenant) {
+        Tenant registration = registration(tenant);
+        synchronized (registration) {
+            synchronized (this) {
+                OntologyReasoner reasoner = registration.reasoner;
+                if (reasoner != null) {
+                    registration.hits++;
+                    resident.get(tenant);
+                    return reasoner;
+                }
+            }
+            long start = System.nanoTime();
+            boolean fromSnapshot = isSnapshotCurrent(registration);
+            OntModel model = fromSnapshot ? readSnapshot(registration) : readSources(registration);
+            OntologyReasoner reasoner = new OntologyReasoner(profile);
+            reasoner.setModel(model);
+            long bytes = MemoryBudget.estimate(model.getGraph());
+            long loadNanos = System.nanoTime() - start;
+            synchronized (this) {
+                registration.loads++;
+                if (fromSnapshot) {
+                    registration.snapshotLoads++;
+                }
+                registration.lastLoadNanos = loadNanos;
+                registration.totalLoadNanos += loadNanos;
+                if (tenants.get(tenant) == registration) {
+                    registration.reasoner = reasoner;
+                    registration.estimatedBytes = bytes;
+                    registration.residentSince = System.nanoTime();
+                    resident.put(tenant, registration);
+                    residentBytes += bytes;
+                    evictOverBudget();
+                }
+            }
+            return reasoner;
+        }
+    }
+
+    /**
+     * Drops the model of a tenant from memory. Its snapshot is kept for the next load.
+     *
+     * @param tenant the tenant identifier
+     */
+    public void evict(String tenant) {
+        evict(registration(tenant));
+    }
+
+    /**
+     * @param tenant the tenant identifier
+     * @return a snapshot of the residency and load metrics of the tenant
+     */
+    public synchronized TenantStats getStats(String tenant) {
+        Tenant t = registration(tenant);
+        long residentNanos = t.residentNanos + (t.reasoner != null ? System.nanoTime() - t.residentSince : 0);
+        return new TenantStats(t.reasoner != null, t.estimatedBytes, t.hits, t.loads, t.snapshotLoads,
+                t.evictions, Duration.ofNanos(t.lastLoadNanos), Duration.ofNanos(t.totalLoadNanos),
+                Duration.ofNanos(residentNanos));
+    }
+
+    /**
+     * @return the estimated heap size of all resident models
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * @return the identifiers of the resident tenants, least recently used first
+     */
+    public synchronized List<String> getResidentTenants() {
+        return new ArrayList<>(resident.keySet());
+    }
+
+    private Tenant registration(String tenant) {
+        Tenant registration = tenants.get(tenant);
+        if (registration == null) {
+            throw new IllegalArgumentException("Unknown tenant: " + tenant);
+        }
+        return registration;
+    }
+
+    /**
+     * Evicts least recently used tenants until the resident models fit in the budget,
+     * keeping at least the most recently used one.
+     */
+    private void evictOverBudget() {
+        Iterator<Tenant> it = resident.values().iterator();
+        while (residentBytes > maxBytes && resident.size() > 1) {
+            Tenant lru = it.next();
+            it.remove();
+            release(lru);
+        }
+    }
+
+    private synchronized void evict(Tenant registration) {
+        if (resident.remove(registration.id, registration)) {
+            release(registration);
+        }
+    }
+
+    private void release(Tenant registration) {
+        residentBytes -= registration.estimatedBytes;
+        registration.residentNanos += System.nanoTime() - registration.residentSince;
+        registration.reasoner = null;
+        registration.evictions++;
+    }
+
+    /**
+     * A snapshot is current if it is at least as recent as every source file.
+     */
+    private static boolean isSnapshotCurrent(Tenant registration) {
+        File snapshot = registration.snapshot.toFile();
+        if (!snapshot.isFile()) {
+            return false;
+        }
+        for (File source : registration.sources) {
+            if (source.lastModified() > snapshot.lastModified()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private OntModel readSources(Tenant registration) {
+        OntologyReasoner loader = new OntologyReasoner(profile);
+        try {
+            for (File source : registration.sources) {
+                loader.initiateModel(source);
+            }
+        } catch (FileNotFoundException e) {
+            throw new org.apache.jena.shared.NotFoundException(e.getMessage());
+        }
+        OntModel model = loader.getModel();
+        writeSnapshot(registration, model);
+        return model;
+    }
+
+    /**
+     * Writes the model including its imports, so that reloading it needs no network access.
+     */
+    private void writeSnapshot(Tenant registration, Model model) {
+        try {
+            Files.createDirectories(snapshotDirectory);
+            // Write to a temporary file first so loads never see a partial snapshot
+            Path tmp = Files.createTempFile(snapshotDirectory, "tenant", ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                RDFDataMgr.write(out, model, Lang.RDFTHRIFT);
+            }
+            // The snapshot path only depends on the tenant, so a load that was overtaken by a
+            // new registration must not leave its model behind as the new sources' snapshot
+            synchronized (this) {
+                if (tenants.get(registration.id) == registration) {
+                    Files.move(tmp, registration.snapshot, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } else {
+                    Files.delete(tmp);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private OntModel readSnapshot(Tenant registration) {
+        Model base = ModelFactory.createDefaultModel();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(registration.snapshot))) {
+            RDFDataMgr.read(base, in, Lang.RDFTHRIFT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // The snapshot already holds the imports closure
+        OntModelSpec spec = new OntModelSpec(profile.getSpec());
+        OntDocumentManager documentManager = new OntDocumentManager();
+        documentManager.setProcessImports(false);
+        spec.setDocumentManager(documentManager);
+        return ModelFactory.createOntologyModel(spec, base);
+    }
+
+    private static void deleteSnapshot(Tenant registration) {
+        try {
+            Files.deleteIfExists(registration.snapshot);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
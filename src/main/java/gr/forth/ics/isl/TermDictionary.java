@@ -0,0 +1,155 @@
+package gr.forth.ics.isl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+
+/**
+ * Dictionary assigning dense integer IDs to RDF terms, so that indexes and query results can
+ * carry compact integers instead of nodes or URI strings. IDs are assigned in insertion order
+ * starting from 0 and are decoded to strings only when a caller asks for them.
+ *
+ * <p>Terms are kept in an open-addressing hash table of primitive arrays, so lookups and
+ * insertions of known terms do not allocate. Instances are safe for concurrent readers,
+ * but not while terms are being added.</p>
+ */
+public class TermDictionary {
+
+    private static final int EMPTY = -1;
+
+    /**
+     * Hash slots holding term IDs, or {@link #EMPTY}.
+     */
+    private int[] slots = new int[64];
+    private Node[] nodes = new Node[32];
+    private int size;
+
+    /**
+     * Constructs an empty dictionary.
+     */
+    public TermDictionary() {
+        Arrays.fill(slots, EMPTY);
+    }
+
+    /**
+     * Returns the ID of a term, assigning a new one if the term has not been seen yet.
+     *
+     * @param node the term
+     * @return the ID of the term
+     */
+    public int getOrAdd(Node node) {
+        int mask = slots.length - 1;
+        int slot = mix(node.hashCode()) & mask;
+        int id;
+        while ((id = slots[slot]) != EMPTY) {
+            if (nodes[id].equals(node)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        id = size++;
+        if (id == nodes.length) {
+            nodes = Arrays.copyOf(nodes, id * 2);
+        }
+        nodes[id] = node;
+        slots[slot] = id;
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the ID of a term.
+     *
+     * @param node the term
+     * @return the ID of the term, or -1 if the term is not in the dictionary
+     */
+    public int lookup(Node node) {
+        int mask = slots.length - 1;
+        int slot = mix(node.hashCode()) & mask;
+        int id;
+        while ((id = slots[slot]) != EMPTY) {
+            if (nodes[id].equals(node)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the ID of a URI.
+     *
+     * @param uri the URI
+     * @return the ID of the URI, or -1 if the URI is not in the dictionary
+     */
+    public int lookup(String uri) {
+        return lookup(NodeFactory.createURI(uri));
+    }
+
+    /**
+     * @param id a term ID
+     * @return the term with the given ID
+     */
+    public Node node(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Unknown term ID: " + id);
+        }
+        return nodes[id];
+    }
+
+    /**
+     * Decodes a term ID to its URI, or to the blank node label / literal form for other terms.
+     *
+     * @param id a term ID
+     * @return the string form of the term
+     */
+    public String decode(int id) {
+        Node node = node(id);
+        return node.isURI() ? node.getURI() : node.toString();
+    }
+
+    /**
+     * Decodes a list of term IDs.
+     *
+     * @param ids the term IDs
+     * @return the string forms of the terms, in the same order
+     */
+    public List<String> decode(IntList ids) {
+        List<String> values = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            values.add(decode(ids.get(i)));
+        }
+        return values;
+    }
+
+    /**
+     * @return the number of terms in the dictionary
+     */
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        int[] rehashed = new int[capacity];
+        Arrays.fill(rehashed, EMPTY);
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(nodes[id].hashCode()) & mask;
+            while (rehashed[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            rehashed[slot] = id;
+        }
+        slots = rehashed;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
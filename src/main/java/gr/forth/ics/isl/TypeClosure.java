@@ -0,0 +1,192 @@
+package gr.forth.ics.isl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+
+/**
+ * Class for materializing the inferred {@code rdf:type} closure of instance data ahead of time.
+ * The closure is computed once from the {@code rdfs:subClassOf} hierarchy of a schema and kept
+ * as a separate graph, so that "all instances of a class including its subclasses" becomes a
+ * plain index lookup instead of query-time inference.
+ */
+public class TypeClosure {
+
+    /**
+     * Suffix of the file the closure is persisted to, next to the instance file.
+     */
+    public static final String FILE_SUFFIX = ".types.trdf";
+
+    /**
+     * The inferred type triples that are not already asserted in the instance data.
+     */
+    private final Model inferred;
+
+    private TypeClosure(Model inferred) {
+        this.inferred = inferred;
+    }
+
+    /**
+     * Computes the inferred type closure of instance data with respect to a schema.
+     *
+     * @param schema the model holding the {@code rdfs:subClassOf} hierarchy
+     * @param instances the model holding the asserted {@code rdf:type} triples
+     * @return the closure, holding only the triples missing from {@code instances}
+     */
+    public static TypeClosure materialize(Model schema, Model instances) {
+        Map<Node, Set<Node>> ancestors = ancestors(schema.getGraph());
+        Graph asserted = instances.getGraph();
+        Model inferred = ModelFactory.createDefaultModel();
+        Graph target = inferred.getGraph();
+
+        Node type = RDF.type.asNode();
+        ExtendedIterator<Triple> types = asserted.find(Node.ANY, type, Node.ANY);
+        try {
+            while (types.hasNext()) {
+                Triple t = types.next();
+                for (Node superClass : ancestors.getOrDefault(t.getObject(), Collections.emptySet())) {
+                    if (!asserted.contains(t.getSubject(), type, superClass)) {
+                        target.add(Triple.create(t.getSubject(), type, superClass));
+                    }
+                }
+            }
+        } finally {
+            types.close();
+        }
+        return new TypeClosure(inferred);
+    }
+
+    /**
+     * Computes the strict superclasses of every class of a schema, following
+     * {@code rdfs:subClassOf} transitively. Cycles are tolerated and anonymous
+     * superclasses (e.g. OWL restrictions) are ignored.
+     *
+     * @param schema the schema graph
+     * @return a map from each subclass to all of its named superclasses
+     */
+    static Map<Node, Set<Node>> ancestors(Graph schema) {
+        Map<Node, List<Node>> direct = new HashMap<>();
+        ExtendedIterator<Triple> it = schema.find(Node.ANY, RDFS.subClassOf.asNode(), Node.ANY);
+        try {
+            while (it.hasNext()) {
+                Triple t = it.next();
+                if (t.getObject().isURI()) {
+                    direct.computeIfAbsent(t.getSubject(), k -> new ArrayList<>()).add(t.getObject());
+                }
+            }
+        } finally {
+            it.close();
+        }
+
+        Map<Node, Set<Node>> ancestors = new HashMap<>();
+        Deque<Node> queue = new ArrayDeque<>();
+        for (Node cls : direct.keySet()) {
+            Set<Node> found = new LinkedHashSet<>();
+            queue.addAll(direct.get(cls));
+            while (!queue.isEmpty()) {
+                Node next = queue.poll();
+                if (!next.equals(cls) && found.add(next)) {
+                    queue.addAll(direct.getOrDefault(next, Collections.emptyList()));
+                }
+            }
+            ancestors.put(cls, found);
+        }
+        return ancestors;
+    }
+
+    /**
+     * @return the model holding the inferred type triples
+     */
+    public Model getInferred() {
+        return inferred;
+    }
+
+    /**
+     * @return the number of inferred type triples
+     */
+    public long size() {
+        return inferred.size();
+    }
+
+    /**
+     * Returns the file a closure is persisted to for a given instance file,
+     * e.g. {@code instances.ttl.types.trdf} next to {@code instances.ttl}.
+     *
+     * @param instanceFile the instance data file
+     * @return the closure file
+     */
+    public static File fileFor(File instanceFile) {
+        return new File(instanceFile.getPath() + FILE_SUFFIX);
+    }
+
+    /**
+     * Writes the closure as RDF Thrift, which is compact and fast to load back.
+     *
+     * @param out the stream to write to
+     */
+    public void write(OutputStream out) {
+        RDFDataMgr.write(out, inferred, Lang.RDFTHRIFT);
+    }
+
+    /**
+     * Writes the closure to a file.
+     *
+     * @param file the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    public void save(File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            write(out);
+        }
+    }
+
+    /**
+     * Reads a closure previously written with {@link #write(OutputStream)}.
+     *
+     * @param in the stream to read from
+     * @return the closure
+     */
+    public static TypeClosure read(InputStream in) {
+        Model inferred = ModelFactory.createDefaultModel();
+        RDFDataMgr.read(inferred, in, Lang.RDFTHRIFT);
+        return new TypeClosure(inferred);
+    }
+
+    /**
+     * Reads a closure from a file.
+     *
+     * @param file the file to read from
+     * @return the closure
+     * @throws IOException if the file cannot be read
+     */
+    public static TypeClosure load(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return read(in);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package gr.forth.ics.isl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDF;
+
+/**
+ * Index from every class to the compressed posting list of its instances, built in a single
+ * pass over the {@code rdf:type} triples of a graph. Instance counts, existence checks and
+ * unions/intersections across classes are answered from the index instead of graph scans.
+ */
+public class TypeIndex {
+
+    private final TermDictionary dictionary;
+
+    /**
+     * Posting lists indexed by the dictionary ID of the class; null for terms that are not classes.
+     */
+    private final PostingList[] postings;
+
+    /**
+     * The named subclasses of each class, if a schema has been set.
+     */
+    private Map<Node, Set<Node>> descendants;
+
+    private TypeIndex(TermDictionary dictionary, PostingList[] postings) {
+        this.dictionary = dictionary;
+        this.postings = postings;
+    }
+
+    /**
+     * Builds the index over the {@code rdf:type} triples of a graph.
+     *
+     * @param graph the instance graph
+     * @return the index
+     */
+    public static TypeIndex build(Graph graph) {
+        TermDictionary dictionary = new TermDictionary();
+        Map<Integer, IntList> members = new HashMap<>();
+        ExtendedIterator<Triple> it = graph.find(Node.ANY, RDF.type.asNode(), Node.ANY);
+        try {
+            while (it.hasNext()) {
+                Triple t = it.next();
+                int classId = dictionary.getOrAdd(t.getObject());
+                int instanceId = dictionary.getOrAdd(t.getSubject());
+                members.computeIfAbsent(classId, k -> new IntList(4)).add(instanceId);
+            }
+        } finally {
+            it.close();
+        }
+        PostingList[] postings = new PostingList[dictionary.size()];
+        for (Map.Entry<Integer, IntList> entry : members.entrySet()) {
+            IntList ids = entry.getValue();
+            postings[entry.getKey()] = PostingList.of(ids.array(), ids.size());
+        }
+        return new TypeIndex(dictionary, postings);
+    }
+
+    /**
+     * Sets the schema whose {@code rdfs:subClassOf} hierarchy is used for queries including subclasses.
+     *
+     * @param schema the schema graph
+     */
+    public void setSchema(Graph schema) {
+        Map<Node, Set<Node>> inverted = new HashMap<>();
+        for (Map.Entry<Node, Set<Node>> entry : TypeClosure.ancestors(schema).entrySet()) {
+            for (Node ancestor : entry.getValue()) {
+                inverted.computeIfAbsent(ancestor, k -> new HashSet<>()).add(entry.getKey());
+            }
+        }
+        this.descendants = inverted;
+    }
+
+    /**
+     * @return the dictionary used to encode classes and instances
+     */
+    public TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Returns the posting list of the direct instances of a class.
+     *
+     * @param classUri the URI of the class
+     * @return the instance IDs, empty if the class has no instances
+     */
+    public PostingList instances(String classUri) {
+        int id = dictionary.lookup(classUri);
+        PostingList list = id < 0 ? null : postings[id];
+        return list == null ? PostingList.EMPTY : list;
+    }
+
+    /**
+     * Returns the posting list of the direct instances of a class given by its dictionary ID.
+     *
+     * @param classId the dictionary ID of the class
+     * @return the instance IDs, empty if the term is not a class with instances
+     */
+    public PostingList instances(int classId) {
+        PostingList list = classId < 0 || classId >= postings.length ? null : postings[classId];
+        return list == null ? PostingList.EMPTY : list;
+    }
+
+    /**
+     * Appends the dictionary IDs of all classes having at least one direct instance.
+     *
+     * @param target the list the IDs are appended to, e.g. a reused buffer
+     * @return the given list
+     */
+    public IntList classIds(IntList target) {
+        for (int id = 0; id < postings.length; id++) {
+            if (postings[id] != null) {
+                target.add(id);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Returns the posting list of the instances of a class, optionally including its subclasses.
+     *
+     * @param classUri the URI of the class
+     * @param includeSubclasses whether to include the instances of subclasses
+     * @return the instance IDs
+     * @throws IllegalStateException if subclasses are requested but no schema has been set
+     */
+    public PostingList instances(String classUri, boolean includeSubclasses) {
+        if (!includeSubclasses) {
+            return instances(classUri);
+        }
+        return union(Collections.singleton(classUri), true);
+    }
+
+    /**
+     * Counts the instances of a class.
+     *
+     * @param classUri the URI of the class
+     * @param includeSubclasses whether to include the instances of subclasses
+     * @return the number of distinct instances
+     */
+    public int count(String classUri, boolean includeSubclasses) {
+        return instances(classUri, includeSubclasses).size();
+    }
+
+    /**
+     * Checks whether a class has at least one direct instance.
+     *
+     * @param classUri the URI of the class
+     * @return true if the class has instances
+     */
+    public boolean hasInstances(String classUri) {
+        return !instances(classUri).isEmpty();
+    }
+
+    /**
+     * Checks whether a resource is an instance of a class.
+     *
+     * @param instanceUri the URI of the resource
+     * @param classUri the URI of the class
+     * @param includeSubclasses whether membership in a subclass counts
+     * @return true if the resource is an instance of the class
+     */
+    public boolean isInstanceOf(String instanceUri, String classUri, boolean includeSubclasses) {
+        int instanceId = dictionary.lookup(instanceUri);
+        if (instanceId < 0) {
+            return false;
+        }
+        if (instances(classUri).contains(instanceId)) {
+            return true;
+        }
+        if (includeSubclasses) {
+            for (Node subClass : subClasses(classUri)) {
+                if (instances(subClass).contains(instanceId)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the URIs of all classes having at least one direct instance
+     */
+    public Collection<String> classesWithInstances() {
+        List<String> classes = new ArrayList<>();
+        for (int id = 0; id < postings.length; id++) {
+            if (postings[id] != null) {
+                classes.add(dictionary.decode(id));
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * @return the number of direct instances of every class having instances
+     */
+    public Map<String, Integer> counts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int id = 0; id < postings.length; id++) {
+            if (postings[id] != null) {
+                counts.put(dictionary.decode(id), postings[id].size());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the instances of any of the given classes.
+     *
+     * @param classUris the URIs of the classes
+     * @param includeSubclasses whether to include the instances of subclasses
+     * @return the instance IDs
+     */
+    public PostingList union(Collection<String> classUris, boolean includeSubclasses) {
+        BitSet bits = new BitSet(dictionary.size());
+        for (String classUri : classUris) {
+            instances(classUri).addTo(bits);
+            if (includeSubclasses) {
+                for (Node subClass : subClasses(classUri)) {
+                    instances(subClass).addTo(bits);
+                }
+            }
+        }
+        return PostingList.of(bits);
+    }
+
+    /**
+     * Returns the resources that are instances of all of the given classes.
+     *
+     * @param classUris the URIs of the classes
+     * @param includeSubclasses whether membership in a subclass counts
+     * @return the instance IDs
+     */
+    public PostingList intersection(Collection<String> classUris, boolean includeSubclasses) {
+        BitSet result = null;
+        for (String classUri : classUris) {
+            PostingList members = includeSubclasses ? union(Collections.singleton(classUri), true) : instances(classUri);
+            BitSet bits = new BitSet(dictionary.size());
+            members.addTo(bits);
+            if (result == null) {
+                result = bits;
+            } else {
+                result.and(bits);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? PostingList.EMPTY : PostingList.of(result);
+    }
+
+    /**
+     * Decodes a posting list to resource URIs.
+     *
+     * @param ids the posting list
+     * @return the URIs, in ID order
+     */
+    public Collection<String> decode(PostingList ids) {
+        List<String> uris = new ArrayList<>(ids.size());
+        PrimitiveIterator.OfInt it = ids.iterator();
+        while (it.hasNext()) {
+            uris.add(dictionary.decode(it.nextInt()));
+        }
+        return uris;
+    }
+
+    private PostingList instances(Node classNode) {
+        int id = dictionary.lookup(classNode);
+        PostingList list = id < 0 ? null : postings[id];
+        return list == null ? PostingList.EMPTY : list;
+    }
+
+    private Set<Node> subClasses(String classUri) {
+        if (descendants == null) {
+            throw new IllegalStateException("No schema has been set for subclass queries");
+        }
+        return descendants.getOrDefault(NodeFactory.createURI(classUri), Collections.emptySet());
+    }
+}
@@ -0,0 +1,147 @@
+package gr.forth.ics.isl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.impl.GraphBase;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.util.iterator.NullIterator;
+
+/**
+ * Class for a read-only union of independently loaded graphs. Adding a graph only indexes
+ * its distinct subjects and predicates; the triples are not copied, and no model over the
+ * union has to be rebound. A find is dispatched only to the graphs that hold its subject and
+ * predicate, so over many loaded ontologies a lookup by subject or predicate costs about as
+ * much as a lookup in the graphs that can answer it.
+ *
+ * <p>Member graphs must not change after they are added, as their indexes would go stale.
+ * Triples held by several members are reported once.</p>
+ */
+public class UnionGraphView extends GraphBase {
+
+    /**
+     * A member graph with the distinct subjects and predicates of its triples.
+     */
+    private static final class Member {
+
+        final Graph graph;
+        final Set<Node> subjects;
+        final Set<Node> predicates;
+
+        Member(Graph graph) {
+            this.graph = graph;
+            // Pre-sized for the worst case of one subject per triple, so indexing never rehashes
+            this.subjects = new HashSet<>(Math.max(16, (int) (graph.size() / 0.75f) + 1));
+            this.predicates = new HashSet<>();
+            ExtendedIterator<Triple> it = graph.find(Node.ANY, Node.ANY, Node.ANY);
+            try {
+                while (it.hasNext()) {
+                    Triple triple = it.next();
+                    subjects.add(triple.getSubject());
+                    predicates.add(triple.getPredicate());
+                }
+            } finally {
+                it.close();
+            }
+        }
+
+        boolean mayMatch(Node subject, Node predicate) {
+            return (!subject.isConcrete() || subjects.contains(subject))
+                    && (!predicate.isConcrete() || predicates.contains(predicate));
+        }
+    }
+
+    /**
+     * The members in the order they were added; replaced as a whole on every addition,
+     * so that finds never lock.
+     */
+    private volatile Member[] members = new Member[0];
+
+    /**
+     * Adds a graph to the union. Its prefixes are added to the prefixes of the union, without
+     * replacing the existing ones.
+     *
+     * @param graph the graph, which must not change afterwards
+     */
+    public void addGraph(Graph graph) {
+        Member member = new Member(graph);
+        synchronized (this) {
+            Member[] grown = new Member[members.length + 1];
+            System.arraycopy(members, 0, grown, 0, members.length);
+            grown[members.length] = member;
+            graph.getPrefixMapping().getNsPrefixMap().forEach((prefix, uri) -> {
+                if (getPrefixMapping().getNsPrefixURI(prefix) == null) {
+                    getPrefixMapping().setNsPrefix(prefix, uri);
+                }
+            });
+            members = grown;
+        }
+    }
+
+    /**
+     * @return the member graphs, in the order they were added
+     */
+    public List<Graph> getGraphs() {
+        List<Graph> graphs = new ArrayList<>();
+        for (Member member : members) {
+            graphs.add(member.graph);
+        }
+        return graphs;
+    }
+
+    @Override
+    protected ExtendedIterator<Triple> graphBaseFind(Triple pattern) {
+        Node subject = pattern.getSubject();
+        Node predicate = pattern.getPredicate();
+        Member[] snapshot = members;
+        List<Member> candidates = new ArrayList<>(2);
+        for (Member member : snapshot) {
+            if (member.mayMatch(subject, predicate)) {
+                candidates.add(member);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return NullIterator.instance();
+        }
+        ExtendedIterator<Triple> result = candidates.get(0).graph.find(pattern);
+        for (int i = 1; i < candidates.size(); i++) {
+            List<Member> earlier = candidates.subList(0, i);
+            result = result.andThen(candidates.get(i).graph.find(pattern)
+                    .filterDrop(triple -> containedIn(earlier, triple)));
+        }
+        return result;
+    }
+
+    private static boolean containedIn(List<Member> members, Triple triple) {
+        for (Member member : members) {
+            if (member.mayMatch(triple.getSubject(), triple.getPredicate()) && member.graph.contains(triple)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean graphBaseContains(Triple triple) {
+        return containedIn(Arrays.asList(members), triple);
+    }
+
+    @Override
+    public boolean dependsOn(Graph other) {
+        if (other == this) {
+            return true;
+        }
+        for (Member member : members) {
+            if (member.graph.dependsOn(other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
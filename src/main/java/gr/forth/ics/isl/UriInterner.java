@@ -0,0 +1,91 @@
+package gr.forth.ics.isl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParserBuilder;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.riot.system.StreamRDFWrapper;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * Stream stage that makes every occurrence of a URI in a parsed document refer to the same
+ * node. The parsers only remember a bounded number of recent IRIs, so in a large document a
+ * URI that recurs far from its previous occurrence is stored again as a separate copy, and
+ * with many instances most of the URI characters held by the graph are such duplicates. All
+ * listings and indexes of this library share the URI strings of the graph, so removing the
+ * copies from the graph shrinks everything built on it.
+ *
+ * <p>The table of seen URIs lives only as long as the parse, or until {@link #stop()}.</p>
+ */
+final class UriInterner extends StreamRDFWrapper {
+
+    private Map<String, Node> uris = new HashMap<>();
+
+    /**
+     * @param destination the stream receiving the triples with shared URI nodes
+     */
+    UriInterner(StreamRDF destination) {
+        super(destination);
+    }
+
+    /**
+     * Parses a document into the base model of an ontology model and then loads its imports,
+     * as {@link OntModel#read(java.io.InputStream, String, String)} does.
+     *
+     * @param model  the model to read into
+     * @param parser the parser, with its source set
+     * @param lang   the RDF format, as used in {@link OntologyReasoner#langs}
+     * @param base   the base URI of the document, may be null
+     */
+    static void read(OntModel model, RDFParserBuilder parser, String lang, String base) {
+        parser.lang(RDFLanguages.nameToLang(lang)).base(base)
+                .parse(new UriInterner(StreamRDFLib.graph(model.getBaseModel().getGraph())));
+        model.loadImports();
+        model.rebind();
+    }
+
+    @Override
+    public void triple(Triple triple) {
+        Node s = intern(triple.getSubject());
+        Node p = intern(triple.getPredicate());
+        Node o = intern(triple.getObject());
+        if (s != triple.getSubject() || p != triple.getPredicate() || o != triple.getObject()) {
+            triple = Triple.create(s, p, o);
+        }
+        super.triple(triple);
+    }
+
+    @Override
+    public void quad(Quad quad) {
+        Node g = quad.getGraph() == null ? null : intern(quad.getGraph());
+        Node s = intern(quad.getSubject());
+        Node p = intern(quad.getPredicate());
+        Node o = intern(quad.getObject());
+        if (g != quad.getGraph() || s != quad.getSubject() || p != quad.getPredicate() || o != quad.getObject()) {
+            quad = Quad.create(g, s, p, o);
+        }
+        super.quad(quad);
+    }
+
+    /**
+     * Drops the table of seen URIs and passes the rest of the parse through unchanged, for
+     * destinations that stop keeping the triples on the heap.
+     */
+    void stop() {
+        uris = null;
+    }
+
+    private Node intern(Node node) {
+        if (uris == null || !node.isURI()) {
+            return node;
+        }
+        Node shared = uris.putIfAbsent(node.getURI(), node);
+        return shared != null ? shared : node;
+    }
+}
@@ -0,0 +1,138 @@
+import org.apache.jena.atlas.json.JSON;
+import org.apache.jena.atlas.json.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gr.forth.ics.isl.BatchClassifier;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestBatchClassifier {
+
+    private static final PrintStream NO_LOG = new PrintStream(OutputStream.nullOutputStream());
+
+    @TempDir
+    Path dir;
+
+    private void createInput() throws IOException {
+        Files.createDirectories(dir.resolve("a"));
+        Files.copy(Paths.get("examples/schema.rdfs"), dir.resolve("a/schema.rdfs"));
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(dir.resolve("a/instances.ttl.gz")))) {
+            Files.copy(Paths.get("examples/instances.ttl"), out);
+        }
+        Files.writeString(dir.resolve("broken.ttl"), "<http://example.org/a> <http://example.org/p> .");
+        Files.writeString(dir.resolve(".hidden.ttl"), "");
+    }
+
+    private static Map<String, JsonObject> records(String jsonl) {
+        Map<String, JsonObject> records = new HashMap<>();
+        for (String line : jsonl.split("\n")) {
+            JsonObject record = JSON.parse(line);
+            records.put(Paths.get(record.get("file").getAsString().value()).getFileName().toString(), record);
+        }
+        return records;
+    }
+
+    @Test
+    public void testListsDirectoriesAndGlobs() throws IOException {
+        createInput();
+        assertEquals(3, BatchClassifier.listFiles(dir.toString()).size());
+        List<Path> gzipped = BatchClassifier.listFiles(dir + "/*/*.gz");
+        assertEquals(List.of(dir.resolve("a/instances.ttl.gz")), gzipped);
+        assertEquals(List.of(dir.resolve("broken.ttl")), BatchClassifier.listFiles(dir.resolve("broken.ttl").toString()));
+    }
+
+    @Test
+    public void testRecords() throws IOException, InterruptedException {
+        createInput();
+        StringWriter out = new StringWriter();
+        new BatchClassifier(2, true, NO_LOG).run(BatchClassifier.listFiles(dir.toString()), out);
+
+        Map<String, JsonObject> records = records(out.toString());
+        assertEquals(3, records.size());
+        JsonObject schema = records.get("schema.rdfs");
+        assertEquals("RDF/XML", schema.get("format").getAsString().value());
+        assertTrue(schema.get("schema").getAsBoolean().value());
+        assertTrue(schema.get("properties").getAsNumber().value().intValue() > 0);
+        assertTrue(schema.hasKey("valid"));
+
+        JsonObject instances = records.get("instances.ttl.gz");
+        assertEquals("Turtle", instances.get("format").getAsString().value());
+        assertFalse(instances.get("schema").getAsBoolean().value());
+        assertTrue(instances.get("instances").getAsNumber().value().intValue() > 0);
+
+        JsonObject broken = records.get("broken.ttl");
+        assertTrue(broken.hasKey("error"));
+        assertFalse(broken.hasKey("triples"));
+    }
+
+    @Test
+    public void testImportsAreNotCounted() throws IOException, InterruptedException {
+        Path file = dir.resolve("importing.ttl");
+        Files.writeString(file, "@prefix owl: <http://www.w3.org/2002/07/owl#> .\n"
+                + "<http://example.org/o> a owl:Ontology ; owl:imports <"
+                + Paths.get("examples/schema.rdfs").toAbsolutePath().toUri() + "> .\n"
+                + "<http://example.org/a> a <http://example.org/C> .\n");
+        StringWriter out = new StringWriter();
+        new BatchClassifier(1, false, NO_LOG).run(List.of(file), out);
+        JsonObject record = records(out.toString()).get("importing.ttl");
+        assertFalse(record.hasKey("error"));
+        assertEquals(3, record.get("triples").getAsNumber().value().intValue());
+        assertEquals(2, record.get("classes").getAsNumber().value().intValue());
+    }
+
+    @Test
+    public void testResumeSkipsRecordedFiles() throws IOException, InterruptedException {
+        createInput();
+        List<Path> files = BatchClassifier.listFiles(dir.toString());
+        StringWriter first = new StringWriter();
+        new BatchClassifier(1, false, NO_LOG).run(files.subList(0, 1), first);
+        // An interrupted run may leave a truncated last record
+        Path results = dir.resolve("results.jsonl");
+        Files.writeString(results, first + "{\"file\":\"" + files.get(1), StandardCharsets.UTF_8);
+
+        assertEquals(1, BatchClassifier.completedFiles(results).size());
+        List<Path> remaining = BatchClassifier.remainingFiles(files, results);
+        assertEquals(files.subList(1, 3), remaining);
+        assertEquals(files, BatchClassifier.remainingFiles(files, dir.resolve("missing.jsonl")));
+    }
+
+    @Test
+    public void testWriteFailureIsThrown() throws IOException {
+        createInput();
+        Writer failing = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        IOException e = assertThrows(IOException.class,
+                () -> new BatchClassifier(2, false, NO_LOG).run(BatchClassifier.listFiles(dir.toString()), failing));
+        assertEquals("disk full", e.getMessage());
+    }
+}
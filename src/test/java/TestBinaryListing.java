@@ -0,0 +1,93 @@
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jena.ext.com.google.common.collect.ArrayListMultimap;
+import org.apache.jena.ext.com.google.common.collect.Multimap;
+import org.junit.jupiter.api.Test;
+
+import gr.forth.ics.isl.BinaryListing;
+import gr.forth.ics.isl.InstanceFetcher;
+import gr.forth.ics.isl.OntologyReasoner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestBinaryListing {
+
+    @Test
+    public void testUriListRoundTrip() throws IOException {
+        OntologyReasoner reasoner = new OntologyReasoner();
+        reasoner.initiateModel(new File("examples/schema.rdfs"));
+        Collection<String> properties = reasoner.getAllProperties();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryListing.writeUris(properties, out);
+        assertEquals(new ArrayList<>(new TreeSet<>(properties)),
+                BinaryListing.readUris(new ByteArrayInputStream(out.toByteArray())));
+
+        // Front coding leaves little more than the local names
+        int plain = String.join("", properties).getBytes(StandardCharsets.UTF_8).length;
+        assertTrue(out.size() < plain / 2, out.size() + " bytes, plain " + plain);
+    }
+
+    @Test
+    public void testClassInstancesRoundTrip() throws IOException {
+        Multimap<String, Pair<String, String>> listing =
+                new InstanceFetcher(new File("examples/instances.ttl")).getClassAndInstanceUris();
+        listing.put("http://example.org/\uD83D\uDE00Class", new ImmutablePair<>("http://example.org/\uD83D\uDE01", null));
+        listing.put("http://example.org/\uD83D\uDE00Class", new ImmutablePair<>("http://example.org/x", "\u00E9t\u00E9"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryListing.writeClassInstances(listing, out);
+        assertEquals(listing, BinaryListing.readClassInstances(new ByteArrayInputStream(out.toByteArray())));
+
+        List<String> visited = new ArrayList<>();
+        long records = BinaryListing.readClassInstances(new ByteArrayInputStream(out.toByteArray()),
+                (cls, instance, label) -> visited.add(instance));
+        assertEquals(listing.size(), records);
+        assertEquals(listing.size(), visited.size());
+    }
+
+    @Test
+    public void testBlankNodeInstances() throws IOException {
+        String data = "@prefix ex: <http://example.org/> .\n"
+                + "@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n"
+                + "[] a ex:C ; rdfs:label \"x\" .\n"
+                + "ex:i a ex:C .\n";
+        Multimap<String, Pair<String, String>> listing = new InstanceFetcher(data, ".ttl").getClassAndInstanceUris();
+        assertTrue(listing.containsEntry("http://example.org/C", new ImmutablePair<>(null, "x")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryListing.writeClassInstances(listing, out);
+        assertEquals(listing, BinaryListing.readClassInstances(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    public void testWrongKindIsRejected() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryListing.writeUris(Arrays.asList("http://example.org/a"), out);
+        assertThrows(IOException.class, () -> BinaryListing.readClassInstances(
+                new ByteArrayInputStream(out.toByteArray())));
+        assertThrows(IOException.class, () -> BinaryListing.readUris(
+                new ByteArrayInputStream("not a listing".getBytes(StandardCharsets.UTF_8))));
+        assertEquals(ArrayListMultimap.create(), BinaryListing.readClassInstances(new ByteArrayInputStream(
+                writeEmpty())));
+    }
+
+    private static byte[] writeEmpty() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryListing.writeClassInstances(ArrayListMultimap.create(), out);
+        return out.toByteArray();
+    }
+}
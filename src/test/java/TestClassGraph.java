@@ -0,0 +1,88 @@
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gr.forth.ics.isl.ClassGraph;
+import gr.forth.ics.isl.OntologyReasoner;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestClassGraph {
+
+    private static final String CRM = "http://www.cidoc-crm.org/cidoc-crm/";
+
+    private static ClassGraph graph;
+
+    @BeforeAll
+    public static void setUp() throws FileNotFoundException {
+        OntologyReasoner reasoner = new OntologyReasoner();
+        reasoner.initiateModel(new File("examples/schema.rdfs"));
+        graph = reasoner.getClassGraph();
+    }
+
+    @Test
+    public void testInheritedPropertiesConnectSubclasses() {
+        // P74 is declared on E39_Actor and inherited by E21_Person
+        assertEquals(1, graph.distance(CRM + "E21_Person", CRM + "E53_Place"));
+        assertTrue(graph.shortestPaths(CRM + "E21_Person", CRM + "E53_Place", 50).stream()
+                .anyMatch(p -> p.getProperties().equals(List.of(CRM + "P74_has_current_or_former_residence"))));
+        assertTrue(graph.isReachable(CRM + "E5_Event", CRM + "E21_Person"));
+    }
+
+    @Test
+    public void testShortestPathsAreOrderedDistinctAndLoopless() {
+        List<ClassGraph.PropertyPath> paths = graph.shortestPaths(CRM + "E22_Human-Made_Object", CRM + "E21_Person", 20);
+        assertEquals(20, paths.size());
+        Set<List<List<String>>> distinct = new HashSet<>();
+        int previous = 0;
+        for (ClassGraph.PropertyPath path : paths) {
+            assertTrue(path.length() >= previous);
+            previous = path.length();
+            assertTrue(distinct.add(List.of(path.getClasses(), path.getProperties())), path.toString());
+            assertEquals(path.getClasses().size(), new HashSet<>(path.getClasses()).size(), path.toString());
+            assertEquals(CRM + "E21_Person", path.getClasses().get(path.length()));
+        }
+        assertEquals(graph.distance(CRM + "E22_Human-Made_Object", CRM + "E21_Person"), paths.get(0).length());
+    }
+
+    @Test
+    public void testUnreachableClasses() {
+        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
+        model.createObjectProperty("http://example.org/p").addDomain(model.createClass("http://example.org/A"));
+        model.getObjectProperty("http://example.org/p").addRange(model.createClass("http://example.org/B"));
+        ClassGraph small = ClassGraph.build(model.getGraph());
+
+        assertTrue(small.isReachable("http://example.org/A", "http://example.org/B"));
+        assertFalse(small.isReachable("http://example.org/B", "http://example.org/A"));
+        assertEquals(-1, small.distance("http://example.org/B", "http://example.org/A"));
+        assertTrue(small.shortestPaths("http://example.org/B", "http://example.org/A", 3).isEmpty());
+    }
+
+    @Test
+    public void testGraphFollowsLoadedSchemas(@TempDir Path dir) throws IOException {
+        String prefixes = "@prefix ex: <http://example.org/> .\n"
+                + "@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n";
+        Path first = Files.writeString(dir.resolve("first.ttl"), prefixes + "ex:p rdfs:domain ex:A ; rdfs:range ex:B .\n");
+        Path second = Files.writeString(dir.resolve("second.ttl"), prefixes + "ex:q rdfs:domain ex:B ; rdfs:range ex:C .\n");
+        OntologyReasoner reasoner = new OntologyReasoner();
+        reasoner.initiateModel(first.toFile());
+        assertFalse(reasoner.getClassGraph().isReachable("http://example.org/A", "http://example.org/C"));
+
+        reasoner.initiateModel(second.toFile());
+        assertEquals(2, reasoner.getClassGraph().distance("http://example.org/A", "http://example.org/C"));
+    }
+}
@@ -0,0 +1,66 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gr.forth.ics.isl.CompressedInput;
+import gr.forth.ics.isl.InstanceFetcher;
+import gr.forth.ics.isl.OntologyReasoner;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestCompressedInput {
+
+    @TempDir
+    Path tmp;
+
+    private File gzip(File source, String name) throws IOException {
+        File target = tmp.resolve(name).toFile();
+        try (InputStream in = new FileInputStream(source);
+             OutputStream out = new GZIPOutputStream(new FileOutputStream(target))) {
+            in.transferTo(out);
+        }
+        return target;
+    }
+
+    @Test
+    public void testFormatExtension() {
+        assertEquals(".ttl", CompressedInput.formatExtension("data/instances.ttl.gz"));
+        assertEquals(".rdf", CompressedInput.formatExtension(".RDF.bz2"));
+        assertEquals(".nt", CompressedInput.formatExtension("http://example.org/dump.nt"));
+        assertEquals("", CompressedInput.formatExtension("http://example.org/dump"));
+        assertTrue(CompressedInput.isCompressed("schema.rdfs.gz"));
+        assertFalse(CompressedInput.isCompressed("schema.rdfs"));
+    }
+
+    @Test
+    public void testInstanceFetcherReadsGzipByExtension() throws IOException {
+        File plain = new File("examples/instances.ttl");
+        File compressed = gzip(plain, "instances.ttl.gz");
+
+        InstanceFetcher expected = new InstanceFetcher(plain);
+        InstanceFetcher actual = new InstanceFetcher(compressed);
+        assertEquals(expected.getClassUris(), actual.getClassUris());
+    }
+
+    @Test
+    public void testInitiateModelDetectsGzipMagicBytes() throws IOException {
+        // Compressed content behind a plain extension is recognised from its magic bytes
+        File compressed = gzip(new File("examples/schema.rdfs"), "schema.rdfs");
+
+        OntologyReasoner reasoner = new OntologyReasoner();
+        reasoner.initiateModel(compressed);
+        assertFalse(reasoner.getAllProperties().isEmpty());
+        assertTrue(Files.size(compressed.toPath()) < new File("examples/schema.rdfs").length());
+    }
+}
@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.Test;
+
+import gr.forth.ics.isl.FormatSniffer;
+import gr.forth.ics.isl.InstanceFetcher;
+import gr.forth.ics.isl.OntologyReasoner;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestFormatSniffer {
+
+    private static String lang(String content) {
+        return FormatSniffer.detect(content).getLang();
+    }
+
+    @Test
+    public void testDetectExamples() throws IOException {
+        byte[] rdfxml = Files.readAllBytes(Paths.get("examples/schema.rdfs"));
+        assertEquals("RDF/XML", FormatSniffer.detect(rdfxml, rdfxml.length).getLang());
+        byte[] turtle = Files.readAllBytes(Paths.get("examples/instances.ttl"));
+        FormatSniffer.Detection detection = FormatSniffer.detect(turtle, turtle.length);
+        assertEquals("Turtle", detection.getLang());
+        assertTrue(detection.getConfidence() >= FormatSniffer.CONFIDENT);
+    }
+
+    @Test
+    public void testDetectTextFormats() {
+        assertEquals("N-TRIPLES", lang("# comment\n<http://a/s> <http://a/p> \"o\"@en .\n"));
+        assertEquals("N-Quads", lang("<http://a/s> <http://a/p> _:b0 <http://a/g> .\n"));
+        assertEquals("Turtle", lang("PREFIX ex: <http://a/>\nex:s a ex:C ."));
+        assertEquals("TriG", lang("@prefix ex: <http://a/> .\nex:g { ex:s a ex:C . }"));
+        assertEquals("JSON-LD", lang("{ \"@context\": {}, \"@id\": \"http://a/s\" }"));
+        assertEquals("RDF/JSON", lang("{ \"http://a/s\": { \"http://a/p\": [ { \"type\": \"uri\", \"value\": \"http://a/o\" } ] } }"));
+        assertEquals("TriX", lang("<?xml version=\"1.0\"?>\n<TriX xmlns=\"http://www.w3.org/2004/03/trix/trix-1/\"/>"));
+        assertEquals("RDF/XML", lang("<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"/>"));
+        assertNull(FormatSniffer.detect("   \n"));
+    }
+
+    @Test
+    public void testDetectThrift() {
+        byte[] head = {0x2c, 0x1c, 0x18, 0x05, 'h', 't', 't', 'p'};
+        assertEquals("RDF Thrift", FormatSniffer.detect(head, head.length).getLang());
+    }
+
+    @Test
+    public void testSupersetExtensionIsKept() {
+        OntologyReasoner reasoner = new OntologyReasoner();
+        // Turtle opening with an N-Triples statement
+        assertTrue(reasoner.initiateModelFileContent("<http://a/s> <http://a/p> <http://a/o> .\n"
+                + "<http://a/s> a <http://a/C> .\n", ".ttl"));
+        // N-Quads opening with a default graph triple
+        assertTrue(reasoner.initiateModelFileContent("<http://a/s> <http://a/p> <http://a/o> .\n"
+                + "<http://a/s> <http://a/p> <http://a/o> <http://a/g> .\n", ".nq"));
+        // TriG whose graph block starts beyond the inspected head
+        StringBuilder trig = new StringBuilder();
+        for (int i = 0; trig.length() <= FormatSniffer.HEAD_SIZE; i++) {
+            trig.append("@prefix ex").append(i).append(": <http://example.org/ns").append(i).append("/> .\n");
+        }
+        trig.append("<http://a/g> { <http://a/s> a <http://a/C> . }\n");
+        assertEquals("Turtle", lang(trig.toString()));
+        assertTrue(reasoner.initiateModelFileContent(trig.toString(), ".trig"));
+
+        assertEquals("Turtle", FormatSniffer.chooseLang(".ttl", FormatSniffer.detect("<http://a/s> <http://a/p> <http://a/o> .")));
+        assertEquals("TriG", FormatSniffer.chooseLang(".ttl", FormatSniffer.detect("@prefix ex: <http://a/> .\nex:g { ex:s a ex:C . }")));
+    }
+
+    @Test
+    public void testWrongExtensionIsOverridden() throws IOException {
+        String turtle = new String(Files.readAllBytes(Paths.get("examples/instances.ttl")), StandardCharsets.UTF_8);
+        InstanceFetcher fetcher = new InstanceFetcher(turtle, ".rdf");
+        assertFalse(fetcher.getClassUris().isEmpty());
+    }
+}
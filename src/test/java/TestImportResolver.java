@@ -0,0 +1,132 @@
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gr.forth.ics.isl.ImportResolver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestImportResolver {
+
+    private static final long DELAY_MILLIS = 300;
+
+    @TempDir
+    Path mirror;
+
+    private HttpServer server;
+    private String base;
+    private final Map<String, String> documents = new HashMap<>();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(java.util.concurrent.Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String body = documents.get(exchange.getRequestURI().getPath());
+            byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/turtle");
+            exchange.sendResponseHeaders(body == null ? 404 : 200, body == null ? -1 : bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+        base = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private void publish(String path, String... imports) {
+        StringBuilder ttl = new StringBuilder("@prefix owl: <http://www.w3.org/2002/07/owl#> .\n");
+        ttl.append('<').append(base).append(path).append("> a owl:Ontology");
+        for (String imported : imports) {
+            ttl.append(" ; owl:imports <").append(base).append(imported).append('>');
+        }
+        ttl.append(" .\n<").append(base).append(path).append("#C> a owl:Class .\n");
+        documents.put(path, ttl.toString());
+    }
+
+    @Test
+    public void testImportsAreFetchedConcurrently() throws IOException {
+        String[] imports = new String[20];
+        for (int i = 0; i < imports.length; i++) {
+            imports[i] = "/import" + i + ".ttl";
+            publish(imports[i]);
+        }
+        publish("/root.ttl", imports);
+
+        try (ImportResolver resolver = new ImportResolver(mirror, imports.length)) {
+            long start = System.nanoTime();
+            ImportResolver.Resolution resolution = resolver.resolve(base + "/root.ttl");
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(21, resolution.getDocuments().size());
+            assertTrue(resolution.getFailures().isEmpty());
+            // Two round trips (the root, then all imports at once) rather than 21
+            assertTrue(millis < DELAY_MILLIS * 8, "Resolution took " + millis + " ms");
+        }
+    }
+
+    @Test
+    public void testCyclesAndDuplicatesAreReported() throws IOException {
+        publish("/a.ttl", "/b.ttl", "/c.ttl");
+        publish("/b.ttl", "/a.ttl", "/c.ttl");
+        publish("/c.ttl");
+
+        try (ImportResolver resolver = new ImportResolver(mirror, 4)) {
+            OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
+            model.read(base + "/a.ttl", "TTL");
+            ImportResolver.Resolution resolution = resolver.resolve(model.getBaseModel(), base + "/a.ttl");
+
+            assertEquals(List.of(base + "/b.ttl", base + "/c.ttl"), List.copyOf(resolution.getDocuments().keySet()));
+            assertEquals(List.of(List.of(base + "/a.ttl", base + "/b.ttl", base + "/a.ttl")), resolution.getCycles());
+            assertEquals(Map.of(base + "/c.ttl", 2), resolution.getDuplicates());
+
+            resolution.addTo(model);
+            assertTrue(model.getOntClass(base + "/c.ttl#C") != null);
+        }
+    }
+
+    @Test
+    public void testMirrorIsUsedAfterTheSourceIsGone() throws IOException {
+        publish("/root.ttl", "/dep.ttl");
+        publish("/dep.ttl");
+        try (ImportResolver resolver = new ImportResolver(mirror, 2)) {
+            assertEquals(2, resolver.resolve(base + "/root.ttl").getDocuments().size());
+        }
+        assertTrue(Files.exists(mirror.resolve(ImportResolver.MAPPING_FILE)));
+
+        server.stop(0);
+        try (ImportResolver resolver = new ImportResolver(mirror, 2)) {
+            ImportResolver.Resolution resolution = resolver.resolve(base + "/root.ttl");
+            assertEquals(2, resolution.getDocuments().size());
+            assertTrue(resolution.getFailures().isEmpty());
+            assertTrue(resolver.getLocationMapper().altMapping(base + "/dep.ttl").startsWith(mirror.toUri().toString()));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+import org.junit.jupiter.api.Test;
+
+import gr.forth.ics.isl.IngestionScheduler;
+import gr.forth.ics.isl.IngestionScheduler.Priority;
+import gr.forth.ics.isl.OntologyReasoner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestIngestionScheduler {
+
+    /**
+     * Occupies the single worker of a scheduler until the returned latch is released.
+     */
+    private static CountDownLatch block(IngestionScheduler scheduler) {
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit("blocker", Priority.BULK, 1, () -> release.await(10, TimeUnit.SECONDS));
+        return release;
+    }
+
+    private static Future<?> record(IngestionScheduler scheduler, String tenant, Priority priority,
+                                    List<String> order, String name) {
+        return scheduler.submit(tenant, priority, 1, () -> order.add(name));
+    }
+
+    @Test
+    public void testInteractiveJobsRunFirst() throws Exception {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        try (IngestionScheduler scheduler = new IngestionScheduler(1, 100)) {
+            CountDownLatch release = block(scheduler);
+            record(scheduler, "a", Priority.BULK, order, "bulk1");
+            record(scheduler, "a", Priority.BULK, order, "bulk2");
+            Future<?> last = record(scheduler, "b", Priority.INTERACTIVE, order, "interactive");
+            assertEquals(2, scheduler.getStats(Priority.BULK).getQueueDepth());
+            assertEquals(1, scheduler.getStats(Priority.INTERACTIVE).getQueueDepth());
+            release.countDown();
+            last.get(10, TimeUnit.SECONDS);
+            record(scheduler, "a", Priority.BULK, order, "done").get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(Arrays.asList("interactive", "bulk1", "bulk2", "done"), order);
+    }
+
+    @Test
+    public void testTenantsTakeTurns() throws Exception {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        try (IngestionScheduler scheduler = new IngestionScheduler(1, 100)) {
+            CountDownLatch release = block(scheduler);
+            record(scheduler, "a", Priority.BULK, order, "a1");
+            record(scheduler, "a", Priority.BULK, order, "a2");
+            record(scheduler, "a", Priority.BULK, order, "a3");
+            Future<?> last = record(scheduler, "b", Priority.BULK, order, "b1");
+            release.countDown();
+            last.get(10, TimeUnit.SECONDS);
+            record(scheduler, "c", Priority.BULK, order, "done").get(10, TimeUnit.SECONDS);
+            IngestionScheduler.Stats stats = scheduler.getStats(Priority.BULK);
+            assertEquals(0, stats.getQueueDepth());
+            assertEquals(6, stats.getStarted());
+            assertTrue(stats.getMaxWaitMillis() > 0);
+        }
+        assertEquals(Arrays.asList("a1", "b1", "a2", "a3", "done"), order);
+    }
+
+    @Test
+    public void testWeightsBoundConcurrentWork() throws Exception {
+        try (IngestionScheduler scheduler = new IngestionScheduler(4, 100)) {
+            CountDownLatch release = new CountDownLatch(1);
+            Future<?> first = scheduler.submit("a", Priority.BULK, 60, () -> release.await(10, TimeUnit.SECONDS));
+            Future<?> second = scheduler.submit("b", Priority.BULK, 60, () -> release.await(10, TimeUnit.SECONDS));
+            // A job larger than the capacity runs alone, at the full capacity
+            Future<?> oversized = scheduler.submit("c", Priority.BULK, 1_000, () -> true);
+            assertEquals(60, scheduler.getRunningWeight());
+            assertEquals(1, scheduler.getStats(Priority.BULK).getRunning());
+            assertEquals(2, scheduler.getStats(Priority.BULK).getQueueDepth());
+            release.countDown();
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+            oversized.get(10, TimeUnit.SECONDS);
+            assertEquals(3, scheduler.getStats(Priority.BULK).getCompleted());
+        }
+    }
+
+    @Test
+    public void testSubmitFileContent() throws Exception {
+        String content = Files.readString(Paths.get("examples/instances.ttl"));
+        try (IngestionScheduler scheduler = new IngestionScheduler(2, 1 << 20)) {
+            Future<Boolean> valid = scheduler.submitFileContent("a", Priority.INTERACTIVE, new OntologyReasoner(),
+                    content, ".ttl");
+            assertTrue(valid.get(30, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.junit.jupiter.api.Test;
+
+import gr.forth.ics.isl.InstanceFetcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestInstanceFetcher {
+
+    @Test
+    public void testBatchMatchesSingleClassLookups() throws IOException {
+        InstanceFetcher fetcher = new InstanceFetcher(new File("examples/instances.ttl"));
+        fetcher.setCache(1, Duration.ZERO);
+        List<String> classes = new ArrayList<>(fetcher.getClassUris());
+        classes.add("http://example.org/NoSuchClass");
+        // Duplicates are answered once
+        classes.add(classes.get(0));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Map<String, Collection<Pair<String, String>>> instances = fetcher.getInstanceUris(classes, pool);
+            assertEquals(new ArrayList<>(new LinkedHashSet<>(classes)), new ArrayList<>(instances.keySet()));
+            for (String cls : instances.keySet()) {
+                assertEquals(new HashSet<>(fetcher.getInstanceUris(cls)), new HashSet<>(instances.get(cls)), cls);
+            }
+            assertTrue(instances.get("http://example.org/NoSuchClass").isEmpty());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testBatchSharesCacheEntries() {
+        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
+        String ns = "http://example.org/";
+        for (int c = 0; c < 20; c++) {
+            for (int i = 0; i < 10; i++) {
+                Resource instance = model.createResource(ns + "i" + c + "_" + i);
+                model.add(instance, RDF.type, model.createResource(ns + "C" + c));
+                if (i % 2 == 0) {
+                    model.add(instance, RDFS.label, "instance " + i);
+                }
+            }
+        }
+        InstanceFetcher fetcher = new InstanceFetcher(model);
+        fetcher.setCache(64, Duration.ofMinutes(1));
+        Map<String, Collection<Pair<String, String>>> instances =
+                fetcher.getInstanceUris(Arrays.asList(ns + "C3", ns + "C7", ns + "C11"));
+        assertEquals(10, instances.get(ns + "C7").size());
+        assertTrue(instances.get(ns + "C7").contains(Pair.of(ns + "i7_4", "instance 4")));
+        assertTrue(instances.get(ns + "C7").contains(Pair.of(ns + "i7_5", "")));
+        assertSame(instances.get(ns + "C11"), fetcher.getInstanceUris(ns + "C11"));
+    }
+}
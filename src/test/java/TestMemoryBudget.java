@@ -0,0 +1,115 @@
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gr.forth.ics.isl.InstanceFetcher;
+import gr.forth.ics.isl.MemoryBudget;
+import gr.forth.ics.isl.MemoryBudgetExceededException;
+import gr.forth.ics.isl.OntologyReasoner;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestMemoryBudget {
+
+    private static final String INSTANCES = "examples/instances.ttl";
+
+    @TempDir
+    Path spill;
+
+    @Test
+    public void testLoadWithinBudgetStaysInMemory() throws IOException {
+        Model expected = RDFDataMgr.loadModel(INSTANCES);
+        try (InputStream in = new FileInputStream(INSTANCES);
+             MemoryBudget.Load load = new MemoryBudget(Long.MAX_VALUE).load(in, "Turtle", null)) {
+            assertFalse(load.isSpilled());
+            assertEquals(expected.size(), load.getTriples());
+            assertTrue(expected.getGraph().isIsomorphicWith(load.getGraph()));
+        }
+    }
+
+    @Test
+    public void testOversizedInputIsRejectedEarly() throws IOException {
+        MemoryBudget budget = new MemoryBudget(2_000);
+        try (InputStream in = new FileInputStream(INSTANCES)) {
+            MemoryBudgetExceededException e = assertThrows(MemoryBudgetExceededException.class,
+                    () -> new InstanceFetcher(in, ".ttl", budget));
+            assertTrue(e.getMessage().contains("2000 bytes"));
+        }
+
+        OntologyReasoner reasoner = new OntologyReasoner();
+        reasoner.setMemoryBudget(budget);
+        String content = Files.readString(Paths.get(INSTANCES));
+        assertThrows(MemoryBudgetExceededException.class, () -> reasoner.initiateModelFileContent(content, ".ttl"));
+    }
+
+    @Test
+    public void testOversizedInputSpillsToDisk() throws IOException {
+        Model expected = RDFDataMgr.loadModel(INSTANCES);
+        MemoryBudget budget = new MemoryBudget(2_000, MemoryBudget.Policy.SPILL, spill);
+        try (InputStream in = new FileInputStream(INSTANCES);
+             MemoryBudget.Load load = budget.load(in, "Turtle", null)) {
+            assertTrue(load.isSpilled());
+            assertEquals(expected.size(), load.getGraph().size());
+            assertTrue(expected.getGraph().isIsomorphicWith(load.getGraph()));
+
+            InstanceFetcher fetcher = new InstanceFetcher(load.asOntModel(OntModelSpec.OWL_MEM));
+            InstanceFetcher inMemory = new InstanceFetcher(ModelFactory.createOntologyModel(
+                    OntModelSpec.OWL_MEM, expected));
+            assertEquals(inMemory.getClassUris(), fetcher.getClassUris());
+        }
+        assertSpillDirectoryEmpty();
+    }
+
+    @Test
+    public void testSpilledOwnersReleaseTheirStores() throws IOException {
+        MemoryBudget budget = new MemoryBudget(2_000, MemoryBudget.Policy.SPILL, spill);
+        try (InputStream in = new FileInputStream(INSTANCES);
+             InstanceFetcher fetcher = new InstanceFetcher(in, ".ttl", budget)) {
+            assertFalse(fetcher.getClassUris().isEmpty());
+        }
+        assertSpillDirectoryEmpty();
+
+        OntologyReasoner reasoner = new OntologyReasoner();
+        reasoner.setMemoryBudget(budget);
+        long before = OntologyReasoner.getModelAll().size();
+        reasoner.initiateModelFileContent(Files.readString(Paths.get(INSTANCES)), ".ttl");
+        assertEquals(before, OntologyReasoner.getModelAll().size());
+        assertSpillDirectoryEmpty();
+    }
+
+    @Test
+    public void testNamedGraphsAreDroppedAsWithoutBudget() throws IOException {
+        String quads = "<http://a/s> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://a/C> .\n"
+                + "<http://a/x> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://a/D> <http://a/g> .\n";
+        MemoryBudget budget = new MemoryBudget(Long.MAX_VALUE);
+        try (InputStream in = new ByteArrayInputStream(quads.getBytes(StandardCharsets.UTF_8));
+             InstanceFetcher budgeted = new InstanceFetcher(in, ".nq", budget)) {
+            assertEquals(Set.of("http://a/C"), new HashSet<>(new InstanceFetcher(quads, ".nq").getClassUris()));
+            assertEquals(Set.of("http://a/C"), new HashSet<>(budgeted.getClassUris()));
+        }
+    }
+
+    private void assertSpillDirectoryEmpty() throws IOException {
+        try (Stream<Path> files = Files.list(spill)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
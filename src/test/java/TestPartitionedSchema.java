@@ -0,0 +1,119 @@
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gr.forth.ics.isl.OntologyReasoner;
+import gr.forth.ics.isl.PartitionedSchema;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestPartitionedSchema {
+
+    private static final String A = "http://example.org/a#";
+    private static final String B = "http://example.org/b#";
+
+    private static final String SCHEMA = "@prefix owl: <http://www.w3.org/2002/07/owl#> .\n"
+            + "@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n"
+            + "@prefix a: <" + A + "> .\n"
+            + "@prefix b: <" + B + "> .\n"
+            + "a:Person a owl:Class .\n"
+            + "a:Agent a owl:Class .\n"
+            + "a:Person rdfs:subClassOf a:Agent , [ a owl:Restriction ; owl:onProperty a:knows ;"
+            + " owl:allValuesFrom a:Person ] .\n"
+            + "a:knows a owl:ObjectProperty ; rdfs:domain a:Person ; rdfs:range a:Person .\n"
+            + "b:Book a owl:Class .\n"
+            + "b:author a owl:ObjectProperty ; rdfs:domain b:Book ; rdfs:range a:Person .\n";
+
+    @TempDir
+    Path dir;
+
+    private File writeSchema() throws IOException {
+        Path schema = dir.resolve("schema.ttl");
+        Files.writeString(schema, SCHEMA);
+        return schema.toFile();
+    }
+
+    /**
+     * The classes of a reasoner without the anonymous restrictions from the blank node partition.
+     */
+    private static Set<String> namedClasses(OntologyReasoner reasoner) {
+        Set<String> classes = new HashSet<>(reasoner.getAllClasses());
+        classes.remove(null);
+        return classes;
+    }
+
+    @Test
+    public void testPartitionsAreLoadedOnFirstUse() throws IOException {
+        PartitionedSchema schema = PartitionedSchema.open(writeSchema(), dir.resolve("partitions"));
+        assertEquals(new HashSet<>(Arrays.asList(A, B)), schema.getNamespaces());
+        assertEquals(B, schema.getNsPrefixMap().get("b"));
+        assertEquals(4, schema.getTripleCount(B));
+        assertTrue(schema.getLoadedNamespaces().isEmpty());
+
+        OntologyReasoner reasoner = new OntologyReasoner();
+        reasoner.initiateModel(schema, Collections.singletonList("b"));
+        assertEquals(Collections.singleton(B), schema.getLoadedNamespaces());
+        assertEquals(Collections.singleton(B + "Book"), namedClasses(reasoner));
+
+        reasoner.initiateModel(schema, Arrays.asList(A, B));
+        assertEquals(new HashSet<>(Arrays.asList(A + "Person", A + "Agent", B + "Book")), namedClasses(reasoner));
+
+        assertThrows(IllegalArgumentException.class, () -> schema.getPartition("http://example.org/c#"));
+    }
+
+    @Test
+    public void testPartitionsTogetherHoldTheWholeSchema() throws IOException {
+        File file = writeSchema();
+        PartitionedSchema schema = PartitionedSchema.open(file, dir.resolve("partitions"));
+        Model union = schema.createModel(OntModelSpec.OWL_MEM, schema.getNamespaces()).getBaseModel();
+        // Blank nodes in different partitions are the same node
+        assertTrue(RDFDataMgr.loadGraph(file.getPath()).isIsomorphicWith(union.getGraph()));
+    }
+
+    @Test
+    public void testPrefixesDeclaredAfterTheirSubjects() throws IOException {
+        String c = "http://example.org/c/";
+        Path file = dir.resolve("late.ttl");
+        Files.writeString(file, "<" + c + "x/Thing> a <http://www.w3.org/2002/07/owl#Class> .\n"
+                + "@prefix c: <" + c + "> .\n"
+                + "c:Other a <http://www.w3.org/2002/07/owl#Class> .\n");
+        PartitionedSchema schema = PartitionedSchema.open(file.toFile(), dir.resolve("partitions"));
+        assertEquals(Collections.singleton(c), schema.getNamespaces());
+        assertEquals(2, schema.getTripleCount(c));
+        assertEquals(2, schema.getPartition("c").size());
+    }
+
+    @Test
+    public void testIndexIsReusedForAnUnchangedSchema() throws IOException {
+        File file = writeSchema();
+        Path partitions = dir.resolve("partitions");
+        PartitionedSchema.open(file, partitions);
+        Path index = partitions.resolve("partitions.tsv");
+        FileTime written = Files.getLastModifiedTime(index);
+
+        PartitionedSchema reopened = PartitionedSchema.open(file, partitions);
+        assertEquals(written, Files.getLastModifiedTime(index));
+        assertEquals(4, reopened.getTripleCount(B));
+        assertEquals(4, reopened.getPartition("b").size());
+
+        // A newer schema is partitioned again
+        file.setLastModified(System.currentTimeMillis() + 10_000);
+        Files.writeString(file.toPath(), SCHEMA + "b:Journal a <http://www.w3.org/2002/07/owl#Class> .\n");
+        file.setLastModified(System.currentTimeMillis() + 10_000);
+        assertEquals(5, PartitionedSchema.open(file, partitions).getTripleCount(B));
+    }
+}
@@ -0,0 +1,164 @@
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import gr.forth.ics.isl.InstanceFetcher;
+import gr.forth.ics.isl.OntologyIdentifier;
+import gr.forth.ics.isl.OntologyReasoner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Latency and allocation budgets of the main operations, run with {@code mvn test -Pperf}.
+ * Every operation is warmed up, then measured several times on the test thread; the median
+ * wall-clock time and the median number of bytes allocated by the thread are compared with
+ * the budgets, and all results are written to {@code target/perf-report.json}.
+ *
+ * <p>Latency budgets leave ample headroom for slow build machines, while allocation is
+ * nearly deterministic and has tighter budgets. Both can be scaled with
+ * {@code -Dperf.budgetScale=}.</p>
+ */
+@Tag("perf")
+public class TestPerformanceBudgets {
+
+    private static final String SCHEMA = "examples/schema.rdfs";
+    private static final String CRM = "http://www.cidoc-crm.org/cidoc-crm/";
+    private static final String[] INSTANCE_CLASSES = {"E21_Person", "E31_Document", "E52_Time-Span", "E53_Place",
+            "E74_Group", "E5_Event"};
+    private static final int INSTANCES = 20_000;
+    private static final int WARMUP = 5;
+    private static final int RUNS = 9;
+
+    private static final double SCALE = Double.parseDouble(System.getProperty("perf.budgetScale", "1"));
+    private static final Path REPORT = Paths.get("target", "perf-report.json");
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final List<String> results = new ArrayList<>();
+
+    private static String schemaContent;
+    private static String instanceContent;
+    private static OntologyReasoner reasoner;
+    private static InstanceFetcher fetcher;
+
+    @BeforeAll
+    public static void setUp() throws IOException {
+        OntologyReasoner.disableLogging();
+        // The schema starts with a byte order mark, which the RDF/XML parser rejects when reading characters
+        schemaContent = Files.readString(Paths.get(SCHEMA)).replace("\uFEFF", "");
+        instanceContent = generateInstances(INSTANCES);
+        reasoner = new OntologyReasoner();
+        reasoner.initiateModel(new File(SCHEMA));
+        fetcher = new InstanceFetcher(instanceContent, ".ttl");
+    }
+
+    /**
+     * Generates Turtle with labelled instances spread over a few CIDOC-CRM classes.
+     */
+    private static String generateInstances(int count) {
+        StringBuilder ttl = new StringBuilder(count * 120);
+        ttl.append("@prefix crm: <").append(CRM).append("> .\n");
+        ttl.append("@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n");
+        for (int i = 0; i < count; i++) {
+            ttl.append("<http://example.org/instance/").append(i).append("> a crm:")
+                    .append(INSTANCE_CLASSES[i % INSTANCE_CLASSES.length])
+                    .append(" ; rdfs:label \"Instance ").append(i).append("\" .\n");
+        }
+        return ttl.toString();
+    }
+
+    /**
+     * Measures an operation and checks it against its budgets.
+     *
+     * @param name          the name of the operation in the report
+     * @param maxMillis     the latency budget of the operation
+     * @param maxAllocation the allocation budget of the operation, in bytes
+     * @param operation     the operation
+     */
+    private static void measure(String name, double maxMillis, long maxAllocation, Callable<?> operation)
+            throws Exception {
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP; i++) {
+            operation.call();
+        }
+        long[] nanos = new long[RUNS];
+        long[] bytes = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long allocated = THREADS.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            operation.call();
+            nanos[i] = System.nanoTime() - start;
+            bytes[i] = THREADS.getThreadAllocatedBytes(thread) - allocated;
+        }
+        double millis = median(nanos) / 1e6;
+        long allocation = median(bytes);
+        double millisBudget = maxMillis * SCALE;
+        long allocationBudget = (long) (maxAllocation * SCALE);
+        boolean passed = millis <= millisBudget && allocation <= allocationBudget;
+        results.add(String.format(Locale.ROOT,
+                "{\"operation\":\"%s\",\"medianMillis\":%.3f,\"maxMillis\":%.1f,"
+                        + "\"medianAllocatedBytes\":%d,\"maxAllocatedBytes\":%d,\"runs\":%d,\"passed\":%b}",
+                name, millis, millisBudget, allocation, allocationBudget, RUNS, passed));
+        assertTrue(millis <= millisBudget, String.format("%s took %.3f ms, budget %.1f ms", name, millis, millisBudget));
+        assertTrue(allocation <= allocationBudget,
+                String.format("%s allocated %d bytes, budget %d bytes", name, allocation, allocationBudget));
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    @AfterAll
+    public static void writeReport() throws IOException {
+        Files.createDirectories(REPORT.getParent());
+        try (Writer out = Files.newBufferedWriter(REPORT, StandardCharsets.UTF_8)) {
+            out.write("{\"instances\":" + INSTANCES + ",\"budgetScale\":" + SCALE + ",\"results\":[\n");
+            out.write(String.join(",\n", results));
+            out.write("\n]}\n");
+        }
+    }
+
+    @Test
+    public void testOntologyReasoner() throws Exception {
+        measure("OntologyReasoner.initiateModel", 1_000, 40_000_000L,
+                () -> new OntologyReasoner().initiateModel(new File(SCHEMA)));
+        measure("OntologyReasoner.getAllClasses", 5, 64_000L, reasoner::getAllClasses);
+        measure("OntologyReasoner.getAllProperties", 10, 200_000L, reasoner::getAllProperties);
+        measure("OntologyReasoner.listProperties", 50, 1_000_000L, () -> reasoner.listProperties(CRM + "E21_Person"));
+        measure("OntologyReasoner.listObjects", 50, 1_000_000L, () -> reasoner.listObjects(CRM + "E21_Person"));
+    }
+
+    @Test
+    public void testInstanceFetcher() throws Exception {
+        measure("InstanceFetcher.new", 2_500, 150_000_000L, () -> new InstanceFetcher(instanceContent, ".ttl"));
+        measure("InstanceFetcher.getClassUris", 400, 20_000_000L, fetcher::getClassUris);
+        measure("InstanceFetcher.getInstanceUris", 300, 8_000_000L, () -> fetcher.getInstanceUris(CRM + "E21_Person"));
+        measure("InstanceFetcher.getClassAndInstanceUris", 600, 60_000_000L, fetcher::getClassAndInstanceUris);
+    }
+
+    @Test
+    public void testOntologyIdentifier() throws Exception {
+        measure("OntologyIdentifier.isSchema", 1_500, 40_000_000L,
+                () -> new OntologyIdentifier().isSchema(schemaContent, ".rdfs"));
+        measure("OntologyIdentifier.isSchema(instances)", 2_500, 150_000_000L,
+                () -> new OntologyIdentifier().isSchema(instanceContent, ".ttl"));
+    }
+}
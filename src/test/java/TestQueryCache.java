@@ -0,0 +1,88 @@
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.jupiter.api.Test;
+
+import gr.forth.ics.isl.InstanceFetcher;
+import gr.forth.ics.isl.QueryCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestQueryCache {
+
+    @Test
+    public void testRepeatedCallsHitAndChangesInvalidate() throws IOException {
+        InstanceFetcher fetcher = new InstanceFetcher(new File("examples/instances.ttl"));
+        fetcher.setCache(16, Duration.ofMinutes(1));
+        Collection<String> classes = fetcher.getClassUris();
+        assertSame(classes, fetcher.getClassUris());
+        String cls = classes.iterator().next();
+        assertSame(fetcher.getInstanceUris(cls), fetcher.getInstanceUris(cls));
+
+        QueryCache.Stats stats = fetcher.getCacheStats();
+        assertEquals(2, stats.getHits());
+        assertEquals(2, stats.getMisses());
+        assertEquals(0.5, stats.getHitRate());
+    }
+
+    @Test
+    public void testModelChangesInvalidate() {
+        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
+        model.add(model.createResource("http://example.org/a"), RDF.type, model.createResource("http://example.org/A"));
+        InstanceFetcher fetcher = new InstanceFetcher(model);
+        fetcher.setCache(16, Duration.ofMinutes(1));
+        assertEquals(1, fetcher.getClassUris().size());
+
+        // Changes made directly on the graph are seen as well
+        model.getGraph().add(Triple.create(NodeFactory.createURI("http://example.org/b"), RDF.type.asNode(),
+                NodeFactory.createURI("http://example.org/B")));
+        assertEquals(2, fetcher.getClassUris().size());
+        assertTrue(fetcher.getCacheStats().getInvalidations() > 0);
+    }
+
+    @Test
+    public void testCachingIsOptIn() throws IOException {
+        InstanceFetcher fetcher = new InstanceFetcher(new File("examples/instances.ttl"));
+        assertNull(fetcher.getCacheStats());
+        Collection<String> classes = fetcher.getClassUris();
+        assertNotSame(classes, fetcher.getClassUris());
+        // Uncached results belong to the caller
+        classes.clear();
+        assertFalse(fetcher.getClassUris().isEmpty());
+
+        fetcher.setCache(16, Duration.ofMinutes(1));
+        assertThrows(UnsupportedOperationException.class, () -> fetcher.getClassUris().clear());
+        fetcher.disableCache();
+        assertNull(fetcher.getCacheStats());
+    }
+
+    @Test
+    public void testSizeAndTimeEviction() throws InterruptedException {
+        QueryCache<String, String> cache = new QueryCache<>(2, Duration.ofMillis(50));
+        cache.get("a", () -> "1");
+        cache.get("b", () -> "2");
+        cache.get("a", () -> "x");
+        cache.get("c", () -> "3");
+        // "b" was least recently used
+        assertEquals("y", cache.get("b", () -> "y"));
+        assertEquals(2, cache.getStats().getSize());
+
+        Thread.sleep(60);
+        assertEquals("z", cache.get("c", () -> "z"));
+        assertEquals(1, cache.getStats().getHits());
+    }
+}
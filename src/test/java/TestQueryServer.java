@@ -0,0 +1,172 @@
+import org.apache.jena.atlas.json.JSON;
+import org.apache.jena.atlas.json.JsonArray;
+import org.apache.jena.atlas.json.JsonObject;
+import org.apache.jena.atlas.json.JsonValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gr.forth.ics.isl.OntologyReasoner;
+import gr.forth.ics.isl.QueryServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestQueryServer {
+
+    private static final String NS = "http://example.org/";
+
+    /**
+     * A property whose range is an anonymous class, which the range lookup does not handle.
+     */
+    private static final String ANONYMOUS_RANGE = "@prefix owl: <http://www.w3.org/2002/07/owl#> .\n"
+            + "@prefix rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#> .\n"
+            + "@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n"
+            + "<" + NS + "A> a owl:Class .\n"
+            + "<" + NS + "p> a rdf:Property ; rdfs:range [ owl:unionOf ( <" + NS + "A> ) ] .\n";
+
+    @TempDir
+    Path dir;
+
+    private QueryServer server;
+    private HttpClient client;
+    private String base;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new QueryServer(new InetSocketAddress("localhost", 0));
+        server.addSchema("crm", new File("examples/schema.rdfs"));
+        Path anonymous = dir.resolve("anonymous.ttl");
+        Files.writeString(anonymous, ANONYMOUS_RANGE);
+        server.addSchema("anonymous", anonymous.toFile());
+        server.addInstances("data", new File("examples/instances.ttl"));
+        server.start();
+        client = HttpClient.newHttpClient();
+        base = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private HttpResponse<String> get(String pathAndQuery) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(base + pathAndQuery)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String pathAndQuery, String body) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(base + pathAndQuery))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testRoutingAndErrors() throws IOException, InterruptedException {
+        HttpResponse<String> properties = get("/properties?schema=crm");
+        assertEquals(200, properties.statusCode());
+        assertTrue(JSON.parseAny(properties.body()).getAsArray().size() > 0);
+
+        HttpResponse<String> dataClasses = get("/instances?data=data");
+        assertEquals(200, dataClasses.statusCode());
+        String cls = JSON.parseAny(dataClasses.body()).getAsArray().get(0).getAsString().value();
+        JsonArray instances = JSON.parseAny(get("/instances?data=data&class=" + encode(cls)).body()).getAsArray();
+        assertTrue(instances.get(0).getAsObject().hasKey("uri"));
+
+        assertEquals(404, get("/classes/nested?schema=crm").statusCode());
+        assertEquals(400, get("/classes").statusCode());
+        HttpResponse<String> unknown = get("/properties?schema=nope");
+        assertEquals(400, unknown.statusCode());
+        assertEquals("Unknown schema: nope", JSON.parse(unknown.body()).get("error").getAsString().value());
+        assertEquals(500, get("/range?schema=anonymous&class=" + encode(NS + "A")).statusCode());
+
+        HttpResponse<String> classify = post("/classify?ext=.ttl", ANONYMOUS_RANGE);
+        assertEquals(200, classify.statusCode());
+        assertTrue(JSON.parse(classify.body()).get("schema").getAsBoolean().value());
+    }
+
+    @Test
+    public void testGraphListingsMatchTheReasoner() throws IOException, InterruptedException {
+        OntologyReasoner reasoner = new OntologyReasoner();
+        reasoner.initiateModel(new File("examples/schema.rdfs"));
+        assertEquals(new HashSet<>(reasoner.getAllProperties()), strings(get("/properties?schema=crm").body()));
+        assertEquals(new HashSet<>(reasoner.getAllClasses()), strings(get("/classes?schema=crm").body()));
+    }
+
+    private static Set<String> strings(String json) {
+        Set<String> strings = new HashSet<>();
+        JSON.parseAny(json).getAsArray().forEach(value -> strings.add(value.getAsString().value()));
+        return strings;
+    }
+
+    @Test
+    public void testBatchKeepsValidJsonOnFailures() throws IOException, InterruptedException {
+        String body = "/classes?schema=crm\n"
+                + "not a uri\n"
+                + "\n"
+                + "/properties?schema=nope\n"
+                + "/range?schema=anonymous&class=" + encode(NS + "A") + "\n"
+                + "/batch\n"
+                + "/unknown\n"
+                + "/properties?schema=crm\n";
+        HttpResponse<String> response = post("/batch", body);
+        assertEquals(200, response.statusCode());
+        JsonArray items = JSON.parseAny(response.body()).getAsArray();
+        assertEquals(7, items.size());
+        assertTrue(items.get(0).getAsObject().get("result").isArray());
+        for (int i = 1; i < 6; i++) {
+            assertTrue(items.get(i).getAsObject().hasKey("error"), items.get(i).toString());
+        }
+        assertTrue(items.get(6).getAsObject().get("result").isArray());
+    }
+
+    @Test
+    public void testBodyLimit() throws IOException, InterruptedException {
+        server.setMaxBodyBytes(64);
+        HttpResponse<String> response = post("/classify?ext=.ttl", ANONYMOUS_RANGE);
+        assertEquals(413, response.statusCode());
+        assertEquals(200, post("/batch", "/classes?schema=crm").statusCode());
+    }
+
+    @Test
+    public void testMetricsAndConcurrentRequests() throws IOException, InterruptedException {
+        // On JVMs without virtual threads the requests run on the fallback thread pool
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            responses.add(client.sendAsync(HttpRequest.newBuilder(URI.create(base + "/classes?schema=crm")).build(),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.join().statusCode());
+        }
+        get("/properties?schema=nope");
+
+        JsonObject metrics = JSON.parse(get("/metrics").body());
+        JsonObject classes = metrics.get("/classes").getAsObject();
+        assertEquals(8, classes.get("requests").getAsNumber().value().intValue());
+        assertEquals(0, classes.get("errors").getAsNumber().value().intValue());
+        JsonValue properties = metrics.get("/properties");
+        assertEquals(1, properties.getAsObject().get("errors").getAsNumber().value().intValue());
+    }
+}
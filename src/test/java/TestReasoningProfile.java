@@ -0,0 +1,61 @@
+import org.apache.jena.ontology.OntClass;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.jupiter.api.Test;
+
+import gr.forth.ics.isl.OntologyReasoner;
+import gr.forth.ics.isl.ReasoningProfile;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestReasoningProfile {
+
+    private static final String NS = "http://example.org/test#";
+
+    private static OntModel schema(ReasoningProfile profile) {
+        OntModel model = ModelFactory.createOntologyModel(profile.getSpec());
+        OntClass person = model.createClass(NS + "Person");
+        OntClass place = model.createClass(NS + "Place");
+        person.addDisjointWith(place);
+        model.createIndividual(NS + "alice", person);
+        return model;
+    }
+
+    private static Model clash() {
+        Model abox = ModelFactory.createDefaultModel();
+        abox.add(abox.createResource(NS + "alice"), RDF.type, abox.createResource(NS + "Place"));
+        return abox;
+    }
+
+    @Test
+    public void testPelletChecksAboxAdditionsIncrementally() {
+        OntologyReasoner reasoner = new OntologyReasoner(ReasoningProfile.PELLET);
+        reasoner.setModel(schema(ReasoningProfile.PELLET));
+        assertTrue(reasoner.isConsistent());
+
+        Model abox = ModelFactory.createDefaultModel();
+        abox.add(abox.createResource(NS + "bob"), RDF.type, abox.createResource(NS + "Person"));
+        assertTrue(reasoner.addInstances(abox));
+        assertFalse(reasoner.addInstances(clash()));
+    }
+
+    @Test
+    public void testRuleProfilesDetectDisjointness() {
+        for (ReasoningProfile profile : new ReasoningProfile[] {ReasoningProfile.OWL_MICRO, ReasoningProfile.OWL_MINI}) {
+            OntologyReasoner reasoner = new OntologyReasoner(profile);
+            reasoner.setModel(schema(profile));
+            assertTrue(reasoner.isConsistent(), profile.name());
+            assertFalse(reasoner.addInstances(clash()), profile.name());
+        }
+    }
+
+    @Test
+    public void testNoneProfileAcceptsModelsWithoutReport() {
+        OntologyReasoner reasoner = new OntologyReasoner();
+        reasoner.setModel(schema(ReasoningProfile.NONE));
+        assertTrue(reasoner.addInstances(clash()));
+    }
+}
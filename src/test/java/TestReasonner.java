@@ -4,9 +4,12 @@ import org.apache.jena.rdf.model.ModelFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import gr.forth.ics.isl.IntList;
 import gr.forth.ics.isl.OntologyReasoner;
 
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -48,4 +51,28 @@ public class TestReasonner {
         assertTrue(properties.contains("http://www.cidoc-crm.org/cidoc-crm/P147_curated"));
         assertTrue(properties.contains("http://www.cidoc-crm.org/cidoc-crm/P148_has_component"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIdBasedListings() {
+        IntList ids = reasoner.getAllClassIds(new IntList());
+        assertEquals(new HashSet<>(reasoner.getAllClasses()), new HashSet<>(reasoner.getDictionary().decode(ids)));
+
+        ids.clear();
+        reasoner.getAllPropertyIds(ids);
+        assertEquals(new HashSet<>(reasoner.getAllProperties()), new HashSet<>(reasoner.getDictionary().decode(ids)));
+
+        // IDs are stable across calls
+        assertEquals(ids.get(0), reasoner.getAllPropertyIds(new IntList()).get(0));
+    }
+
+    @Test
+    public void testVisitors() {
+        Set<String> classes = new HashSet<>();
+        reasoner.forEachClass(cls -> assertTrue(classes.add(cls.getURI())));
+        assertEquals(new HashSet<>(reasoner.getAllClasses()), classes);
+
+        Set<String> properties = new HashSet<>();
+        reasoner.forEachProperty(property -> assertTrue(properties.add(property.getURI())));
+        assertEquals(new HashSet<>(reasoner.getAllProperties()), properties);
+    }
+}
@@ -0,0 +1,91 @@
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gr.forth.ics.isl.SchemaWatcher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestSchemaWatcher {
+
+    private static final String NS = "http://example.org/schema#";
+
+    @TempDir
+    Path dir;
+
+    private static String classes(String... names) {
+        StringBuilder ttl = new StringBuilder("@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n");
+        for (String name : names) {
+            ttl.append("<").append(NS).append(name).append("> a rdfs:Class .\n");
+        }
+        return ttl.toString();
+    }
+
+    @Test
+    public void testRefreshPublishesDiff() throws IOException {
+        Path people = Files.writeString(dir.resolve("people.ttl"), classes("Person", "Group"));
+        Path places = Files.writeString(dir.resolve("places.ttl"), classes("Place"));
+
+        try (SchemaWatcher watcher = new SchemaWatcher(dir)) {
+            SchemaWatcher.View before = watcher.current();
+            assertEquals(3, before.getGraphs().values().stream().mapToInt(g -> g.size()).sum());
+
+            Files.writeString(people, classes("Person", "Organisation"));
+            List<SchemaWatcher.Diff> diffs = watcher.refresh(Set.of(people, places));
+
+            assertEquals(1, diffs.size());
+            SchemaWatcher.Diff diff = diffs.get(0);
+            assertTrue(diff.getAdded().contains(Triple.create(NodeFactory.createURI(NS + "Organisation"),
+                    RDF.type.asNode(), RDFS.Class.asNode())));
+            assertTrue(diff.getRemoved().contains(Triple.create(NodeFactory.createURI(NS + "Group"),
+                    RDF.type.asNode(), RDFS.Class.asNode())));
+
+            SchemaWatcher.View after = watcher.current();
+            assertEquals(1, after.getVersion());
+            // The unchanged file is shared, and the old view still sees the old content
+            assertSame(before.getGraphs().get(places), after.getGraphs().get(places));
+            assertTrue(before.getGraphs().get(people).contains(NodeFactory.createURI(NS + "Group"),
+                    RDF.type.asNode(), RDFS.Class.asNode()));
+            // Term IDs survive the reload
+            assertEquals(before.getReasoner().encode(NS + "Person"), after.getReasoner().encode(NS + "Person"));
+
+            // Saving the same content again publishes nothing
+            Files.writeString(people, classes("Person", "Organisation"));
+            assertTrue(watcher.refresh(Set.of(people)).isEmpty());
+            assertSame(after, watcher.current());
+        }
+    }
+
+    @Test
+    public void testWatchServiceReloadsChangedFile() throws Exception {
+        Path file = Files.writeString(dir.resolve("schema.ttl"), classes("Person"));
+        BlockingQueue<List<SchemaWatcher.Diff>> changes = new LinkedBlockingQueue<>();
+        try (SchemaWatcher watcher = new SchemaWatcher(dir)) {
+            watcher.addListener((previous, current, diffs) -> changes.add(diffs));
+            watcher.start();
+
+            Files.writeString(file, classes("Person", "Place"));
+            // Polling watch services (e.g. on macOS) can take several seconds to report a change
+            List<SchemaWatcher.Diff> diffs = changes.poll(30, TimeUnit.SECONDS);
+            assertNotNull(diffs);
+            assertEquals(1, diffs.get(0).getAdded().size());
+            assertTrue(diffs.get(0).getRemoved().isEmpty());
+            assertEquals(2, watcher.current().getGraphs().get(file).size());
+        }
+    }
+}
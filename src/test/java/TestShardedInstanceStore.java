@@ -0,0 +1,76 @@
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jena.ext.com.google.common.collect.HashMultimap;
+import org.apache.jena.ext.com.google.common.collect.Multimap;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.junit.jupiter.api.Test;
+
+import gr.forth.ics.isl.InstanceFetcher;
+import gr.forth.ics.isl.ShardedInstanceStore;
+import gr.forth.ics.isl.ShardedInstanceStore.Partitioning;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestShardedInstanceStore {
+
+    private static final String NS = "http://example.org/";
+
+    @Test
+    public void testMatchesInstanceFetcher() throws IOException {
+        InstanceFetcher fetcher = new InstanceFetcher(new File("examples/instances.ttl"));
+        for (Partitioning partitioning : Partitioning.values()) {
+            ShardedInstanceStore store = fetcher.toShardedStore(4, partitioning);
+            for (String cls : fetcher.getClassUris()) {
+                assertEquals(new HashSet<>(fetcher.getInstanceUris(cls)), new HashSet<>(store.getInstanceUris(cls)), cls);
+            }
+            ForkJoinPool pool = new ForkJoinPool(2);
+            try {
+                assertEquals(HashMultimap.create(fetcher.getClassAndInstanceUris()),
+                        HashMultimap.create(store.getClassAndInstanceUris(pool)));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testSubjectsStayInOneShard() {
+        Graph graph = GraphFactory.createGraphMem();
+        for (int i = 0; i < 100; i++) {
+            Node instance = NodeFactory.createURI(NS + "i" + i);
+            graph.add(Triple.create(instance, RDF.type.asNode(), NodeFactory.createURI(NS + "C" + (i % 10))));
+            graph.add(Triple.create(instance, RDFS.label.asNode(), NodeFactory.createLiteral("instance " + i)));
+        }
+        // A second type does not move the subject away from its primary type's shard
+        graph.add(Triple.create(NodeFactory.createURI(NS + "i3"), RDF.type.asNode(), NodeFactory.createURI(NS + "D")));
+
+        ShardedInstanceStore store = ShardedInstanceStore.build(graph, 8, Partitioning.PRIMARY_TYPE);
+        assertEquals(graph.size(), store.size());
+        assertEquals(1, store.getShardsOf(NS + "C3").length);
+        assertArrayEquals(store.getShardsOf(NS + "C3"), store.getShardsOf(NS + "D"));
+        assertEquals(10, store.getInstanceUris(NS + "C3").size());
+        assertTrue(store.getInstanceUris(NS + "D").contains(Pair.of(NS + "i3", "instance 3")));
+        assertTrue(store.getInstanceUris(NS + "NoSuchClass").isEmpty());
+
+        ShardedInstanceStore hashed = ShardedInstanceStore.build(graph, 8, Partitioning.SUBJECT_HASH);
+        assertTrue(hashed.getShardsOf(NS + "C3").length > 1);
+        long total = hashed.scan(Graph::size, Integer::sum, ForkJoinPool.commonPool());
+        assertEquals(graph.size(), total);
+        Multimap<String, Pair<String, String>> all = hashed.getClassAndInstanceUris();
+        assertEquals(101, all.size());
+        assertThrows(IllegalArgumentException.class, () -> ShardedInstanceStore.build(graph, 0, Partitioning.SUBJECT_HASH));
+    }
+}
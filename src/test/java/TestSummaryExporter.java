@@ -0,0 +1,68 @@
+import org.apache.jena.atlas.json.JSON;
+import org.apache.jena.atlas.json.JsonObject;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.junit.jupiter.api.Test;
+
+import gr.forth.ics.isl.InstanceFetcher;
+import gr.forth.ics.isl.SummaryExporter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestSummaryExporter {
+
+    @Test
+    public void testJsonLinesMatchClassAndInstanceUris() throws IOException {
+        InstanceFetcher fetcher = new InstanceFetcher(new File("examples/instances.ttl"));
+        Set<String> expected = new HashSet<>();
+        fetcher.getClassAndInstanceUris().entries().forEach(e -> expected.add(
+                e.getKey() + " " + e.getValue().getLeft() + " " + e.getValue().getRight()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long records = fetcher.exportClassAndInstanceUris(out, SummaryExporter.Format.JSONL);
+
+        Set<String> exported = new HashSet<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            JsonObject record = JSON.parse(line);
+            exported.add(record.get("class").getAsString().value() + " "
+                    + record.get("instance").getAsString().value() + " "
+                    + record.get("label").getAsString().value());
+        }
+        assertEquals(expected.size(), records);
+        assertEquals(expected, exported);
+    }
+
+    @Test
+    public void testCsvQuotingAndProgress() throws IOException {
+        Graph graph = GraphFactory.createDefaultGraph();
+        for (int i = 0; i < 5; i++) {
+            graph.add(Triple.create(NodeFactory.createURI("http://example.org/i" + i), RDF.type.asNode(),
+                    NodeFactory.createURI("http://example.org/C")));
+        }
+        graph.add(Triple.create(NodeFactory.createURI("http://example.org/i0"), RDFS.label.asNode(),
+                NodeFactory.createLiteral("Smith, \"J\"")));
+
+        List<Long> progress = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SummaryExporter(SummaryExporter.Format.CSV, progress::add, 2).export(graph, out);
+
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertEquals(6, csv.split("\r\n").length);
+        assertTrue(csv.contains("http://example.org/C,http://example.org/i0,\"Smith, \"\"J\"\"\"\r\n"));
+        assertEquals(List.of(2L, 4L, 5L), progress);
+    }
+}
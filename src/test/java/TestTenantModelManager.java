@@ -0,0 +1,99 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gr.forth.ics.isl.OntologyReasoner;
+import gr.forth.ics.isl.TenantModelManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestTenantModelManager {
+
+    @TempDir
+    Path dir;
+
+    private Path copy(String name) throws IOException {
+        Path copy = dir.resolve(name);
+        Files.copy(Path.of("examples", name), copy);
+        return copy;
+    }
+
+    private static Set<String> properties(OntologyReasoner reasoner) {
+        return new HashSet<>(reasoner.getAllProperties());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedTenantIsEvictedAndReloadedFromSnapshot() throws IOException {
+        File schema = copy("schema.rdfs").toFile();
+        File instances = copy("instances.ttl").toFile();
+        // Room for the instances and the schema, but not for two schemas
+        TenantModelManager sizes = new TenantModelManager(Long.MAX_VALUE, dir.resolve("sizes"));
+        sizes.register("schema", Collections.singletonList(schema));
+        sizes.register("instances", Collections.singletonList(instances));
+        sizes.getReasoner("schema");
+        sizes.getReasoner("instances");
+        long budget = sizes.getResidentBytes() + sizes.getStats("instances").getEstimatedBytes();
+        TenantModelManager manager = new TenantModelManager(budget, dir.resolve("snapshots"));
+        manager.register("a", Collections.singletonList(schema));
+        manager.register("b", Arrays.asList(schema, instances));
+        manager.register("c", Collections.singletonList(instances));
+
+        OntologyReasoner a = manager.getReasoner("a");
+        Set<String> expected = properties(a);
+        assertEquals(309, expected.size());
+        assertSame(a, manager.getReasoner("a"));
+        manager.getReasoner("c");
+        assertEquals(Arrays.asList("a", "c"), manager.getResidentTenants());
+
+        manager.getReasoner("b");
+        assertEquals(Arrays.asList("c", "b"), manager.getResidentTenants());
+        TenantModelManager.TenantStats stats = manager.getStats("a");
+        assertFalse(stats.isResident());
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getEvictions());
+        assertEquals(0, stats.getSnapshotLoads());
+
+        OntologyReasoner reloaded = manager.getReasoner("a");
+        assertEquals(expected, properties(reloaded));
+        stats = manager.getStats("a");
+        assertTrue(stats.isResident());
+        assertEquals(2, stats.getLoads());
+        assertEquals(1, stats.getSnapshotLoads());
+        assertTrue(stats.getEstimatedBytes() > 0);
+        // Two schemas never fit together
+        assertEquals(Collections.singletonList("a"), manager.getResidentTenants());
+    }
+
+    @Test
+    public void testChangedSourcesInvalidateTheSnapshot() throws IOException {
+        Path instances = copy("instances.ttl");
+        TenantModelManager manager = new TenantModelManager(Long.MAX_VALUE, dir.resolve("snapshots"));
+        manager.register("a", Collections.singletonList(instances.toFile()));
+        long size = manager.getReasoner("a").getModel().size();
+        manager.evict("a");
+
+        Files.writeString(instances, "\n<http://example.org/x> <http://example.org/p> <http://example.org/y> .\n",
+                java.nio.file.StandardOpenOption.APPEND);
+        instances.toFile().setLastModified(System.currentTimeMillis() + 10_000);
+        assertEquals(size + 1, manager.getReasoner("a").getModel().size());
+        assertEquals(0, manager.getStats("a").getSnapshotLoads());
+    }
+
+    @Test
+    public void testUnknownTenant() {
+        TenantModelManager manager = new TenantModelManager(Long.MAX_VALUE, dir);
+        assertThrows(IllegalArgumentException.class, () -> manager.getReasoner("missing"));
+    }
+}
@@ -0,0 +1,99 @@
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gr.forth.ics.isl.InstanceFetcher;
+import gr.forth.ics.isl.TypeClosure;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestTypeClosure {
+
+    private static final String CRM = "http://www.cidoc-crm.org/cidoc-crm/";
+
+    private OntModel schema;
+    private InstanceFetcher fetcher;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        schema = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
+        schema.read("examples/schema.rdfs", "RDF/XML");
+        fetcher = new InstanceFetcher(new File("examples/instances.ttl"));
+    }
+
+    private static Collection<String> uris(Collection<Pair<String, String>> instances) {
+        return instances.stream().map(Pair::getLeft).collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testSubclassInstancesRequireClosure() {
+        assertTrue(fetcher.getInstanceUris(CRM + "E1_CRM_Entity").isEmpty());
+        assertThrows(IllegalStateException.class, () -> fetcher.getInstanceUris(CRM + "E1_CRM_Entity", true));
+    }
+
+    @Test
+    public void testSubclassInstancesFromClosure() {
+        TypeClosure closure = fetcher.materializeTypeClosure(schema);
+        assertTrue(closure.size() > 0);
+
+        Collection<String> timeSpans = uris(fetcher.getInstanceUris(CRM + "E52_Time-Span"));
+        Collection<String> entities = uris(fetcher.getInstanceUris(CRM + "E1_CRM_Entity", true));
+        assertTrue(entities.containsAll(timeSpans));
+        assertEquals(uris(fetcher.getInstanceUris(CRM + "E52_Time-Span", true)), timeSpans);
+    }
+
+    @Test
+    public void testClosureRoundTrip(@TempDir Path tmp) throws IOException {
+        TypeClosure closure = fetcher.materializeTypeClosure(schema);
+        File file = TypeClosure.fileFor(tmp.resolve("instances.ttl").toFile());
+        closure.save(file);
+
+        InstanceFetcher reloaded = new InstanceFetcher(new File("examples/instances.ttl"));
+        reloaded.setTypeClosure(TypeClosure.load(file));
+        assertEquals(uris(fetcher.getInstanceUris(CRM + "E1_CRM_Entity", true)),
+                uris(reloaded.getInstanceUris(CRM + "E1_CRM_Entity", true)));
+    }
+
+    @Test
+    public void testClosureFollowsTypeChanges() {
+        String ns = "http://example.org/";
+        Model hierarchy = ModelFactory.createDefaultModel();
+        Resource a = hierarchy.createResource(ns + "A");
+        Resource b = hierarchy.createResource(ns + "B");
+        hierarchy.add(b, RDFS.subClassOf, a);
+
+        OntModel data = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
+        Resource first = data.createResource(ns + "first");
+        data.add(first, RDF.type, b);
+        // Labels that are not literals are rendered as by the lookups without subclasses
+        data.add(first, RDFS.label, data.createResource(ns + "notLiteral"));
+        InstanceFetcher instances = new InstanceFetcher(data);
+        instances.materializeTypeClosure(hierarchy);
+        assertEquals(instances.getInstanceUris(ns + "B"), instances.getInstanceUris(ns + "A", true));
+        assertEquals(Pair.of(ns + "first", ns + "notLiteral"), instances.getInstanceUris(ns + "A", true).iterator().next());
+
+        data.add(data.createResource(ns + "second"), RDF.type, b);
+        assertEquals(2, instances.getInstanceUris(ns + "A", true).size());
+
+        InstanceFetcher loaded = new InstanceFetcher(data);
+        loaded.setTypeClosure(instances.materializeTypeClosure(hierarchy));
+        data.remove(first, RDF.type, b);
+        assertThrows(IllegalStateException.class, () -> loaded.getInstanceUris(ns + "A", true));
+    }
+}
@@ -0,0 +1,84 @@
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import gr.forth.ics.isl.InstanceFetcher;
+import gr.forth.ics.isl.PostingList;
+import gr.forth.ics.isl.TypeIndex;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestTypeIndex {
+
+    private static final String CRM = "http://www.cidoc-crm.org/cidoc-crm/";
+
+    private InstanceFetcher fetcher;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        fetcher = new InstanceFetcher(new File("examples/instances.ttl"));
+    }
+
+    @Test
+    public void testPostingListEncoding() {
+        int[] ids = new int[1000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (i * 7919) % 5000;
+        }
+        PostingList list = PostingList.of(ids, ids.length);
+        int[] expected = Arrays.stream(ids).distinct().sorted().toArray();
+        assertArrayEquals(expected, list.toArray());
+        for (int id = 0; id < 5000; id++) {
+            assertEquals(Arrays.binarySearch(expected, id) >= 0, list.contains(id));
+        }
+        assertTrue(list.compressedBytes() < expected.length * 4);
+    }
+
+    @Test
+    public void testCountsMatchListing() {
+        TypeIndex index = fetcher.getTypeIndex();
+        assertEquals(new HashSet<>(fetcher.getClassUris()), new HashSet<>(index.classesWithInstances()));
+        for (Map.Entry<String, Integer> count : index.counts().entrySet()) {
+            assertEquals(fetcher.getInstanceUris(count.getKey()).size(), (int) count.getValue());
+        }
+        assertFalse(index.hasInstances(CRM + "E1_CRM_Entity"));
+    }
+
+    @Test
+    public void testSubclassQueries() {
+        OntModel schema = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
+        schema.read("examples/schema.rdfs", "RDF/XML");
+        fetcher.materializeTypeClosure(schema);
+
+        TypeIndex index = fetcher.getTypeIndex();
+        assertEquals(fetcher.getInstanceUris(CRM + "E1_CRM_Entity", true).size(), index.count(CRM + "E1_CRM_Entity", true));
+        List<String> classes = List.of(CRM + "E52_Time-Span", CRM + "E4_Period");
+        assertEquals(index.count(CRM + "E52_Time-Span", false) + index.count(CRM + "E4_Period", false),
+                index.union(classes, false).size());
+        assertTrue(index.intersection(classes, false).isEmpty());
+        assertEquals(index.count(CRM + "E52_Time-Span", false),
+                index.intersection(List.of(CRM + "E52_Time-Span", CRM + "E1_CRM_Entity"), true).size());
+    }
+
+    @Test
+    public void testIndexFollowsModelChanges() {
+        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
+        InstanceFetcher empty = new InstanceFetcher(model);
+        assertTrue(empty.getTypeIndex().classesWithInstances().isEmpty());
+        model.add(model.createResource("http://example.org/a"), RDF.type, model.createResource(CRM + "E21_Person"));
+        assertEquals(1, empty.getTypeIndex().count(CRM + "E21_Person", false));
+    }
+}
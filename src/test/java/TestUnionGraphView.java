@@ -0,0 +1,68 @@
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.shared.AddDeniedException;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.junit.jupiter.api.Test;
+
+import gr.forth.ics.isl.OntologyReasoner;
+import gr.forth.ics.isl.UnionGraphView;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestUnionGraphView {
+
+    private static Node uri(String local) {
+        return NodeFactory.createURI("http://example.org/" + local);
+    }
+
+    private static Graph graph(Triple... triples) {
+        Graph graph = GraphFactory.createDefaultGraph();
+        for (Triple triple : triples) {
+            graph.add(triple);
+        }
+        return graph;
+    }
+
+    @Test
+    public void testFindAcrossGraphs() {
+        Triple shared = Triple.create(uri("a"), RDF.type.asNode(), uri("Class"));
+        Graph first = graph(shared, Triple.create(uri("a"), RDFS.label.asNode(), NodeFactory.createLiteral("A")));
+        Graph second = graph(shared, Triple.create(uri("b"), RDF.type.asNode(), uri("Class")));
+        first.getPrefixMapping().setNsPrefix("ex", "http://example.org/");
+
+        UnionGraphView union = new UnionGraphView();
+        union.addGraph(first);
+        union.addGraph(second);
+        assertEquals(Arrays.asList(first, second), union.getGraphs());
+
+        // The shared triple is reported once
+        assertEquals(3, union.size());
+        assertEquals(2, union.find(Node.ANY, RDF.type.asNode(), Node.ANY).toList().size());
+        assertEquals(2, union.find(uri("a"), Node.ANY, Node.ANY).toList().size());
+        assertEquals(1, union.find(uri("b"), Node.ANY, Node.ANY).toList().size());
+        assertEquals(1, union.find(Node.ANY, RDFS.label.asNode(), Node.ANY).toList().size());
+        assertTrue(union.find(uri("c"), Node.ANY, Node.ANY).toList().isEmpty());
+
+        assertTrue(union.contains(uri("b"), RDF.type.asNode(), uri("Class")));
+        assertFalse(union.contains(uri("b"), RDFS.label.asNode(), Node.ANY));
+        assertEquals("http://example.org/", union.getPrefixMapping().getNsPrefixURI("ex"));
+        assertThrows(AddDeniedException.class, () -> union.add(Triple.create(uri("c"), RDF.type.asNode(), uri("Class"))));
+    }
+
+    @Test
+    public void testLoadedModelsJoinTheUnion() {
+        OntologyReasoner reasoner = new OntologyReasoner();
+        String content = "<http://example.org/union#Thing> a <http://www.w3.org/2002/07/owl#Class> .";
+        assertTrue(reasoner.initiateModelFileContent(content, ".ttl"));
+        assertTrue(OntologyReasoner.getModelAll().getOntClass("http://example.org/union#Thing") != null);
+    }
+}
@@ -0,0 +1,53 @@
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gr.forth.ics.isl.OntologyReasoner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestUriInterner {
+
+    private static final int INSTANCES = 20_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testRecurringUrisShareOneString() throws IOException {
+        // Every instance is referenced again after all others, beyond the parser's IRI cache
+        StringBuilder ttl = new StringBuilder("@prefix crm: <http://www.cidoc-crm.org/cidoc-crm/> .\n");
+        for (int i = 0; i < INSTANCES; i++) {
+            ttl.append("<http://example.org/instance/").append(i).append("> a crm:E21_Person .\n");
+        }
+        for (int i = 0; i < INSTANCES; i++) {
+            ttl.append("<http://example.org/instance/").append(i)
+                    .append("> crm:P1_is_identified_by <http://example.org/instance/")
+                    .append((i * 7) % INSTANCES).append("> .\n");
+        }
+        Path file = dir.resolve("instances.ttl");
+        Files.writeString(file, ttl);
+
+        OntologyReasoner reasoner = new OntologyReasoner();
+        reasoner.initiateModel(file.toFile());
+
+        Set<String> distinct = new HashSet<>();
+        IdentityHashMap<String, Boolean> copies = new IdentityHashMap<>();
+        for (Triple triple : reasoner.getModel().getGraph().find().toList()) {
+            for (Node node : new Node[]{triple.getSubject(), triple.getPredicate(), triple.getObject()}) {
+                distinct.add(node.getURI());
+                copies.put(node.getURI(), true);
+            }
+        }
+        assertEquals(2 * INSTANCES, reasoner.getModel().size());
+        assertEquals(distinct.size(), copies.size());
+    }
+}
@@ -0,0 +1,62 @@
+package gr.forth.ics.isl.benchmarks;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import gr.forth.ics.isl.ClassGraph;
+import gr.forth.ics.isl.OntologyReasoner;
+
+/**
+ * Measures reachability and k-shortest path queries between CIDOC-CRM classes on the
+ * precomputed class connectivity graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassGraphBenchmark {
+
+    private static final String CRM = "http://www.cidoc-crm.org/cidoc-crm/";
+
+    private ClassGraph graph;
+
+    @Setup
+    public void setUp() throws FileNotFoundException {
+        OntologyReasoner.disableLogging();
+        OntologyReasoner reasoner = new OntologyReasoner();
+        reasoner.initiateModel(new File("examples/schema.rdfs"));
+        graph = reasoner.getClassGraph();
+    }
+
+    @Benchmark
+    public int distance() {
+        return graph.distance(CRM + "E22_Human-Made_Object", CRM + "E53_Place");
+    }
+
+    @Benchmark
+    public List<ClassGraph.PropertyPath> fiveShortestPaths() {
+        return graph.shortestPaths(CRM + "E22_Human-Made_Object", CRM + "E53_Place", 5);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ClassGraphBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,86 @@
+package gr.forth.ics.isl.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.OWL;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import gr.forth.ics.isl.OntologyReasoner;
+
+/**
+ * Compares listing the classes and properties of CIDOC-CRM through the ontology API
+ * ({@code listClasses()}/{@code listOntProperties()}) with the visitor methods over raw graph
+ * triples. Run with {@code -prof gc} to compare allocation rates as well.
+ *
+ * <p>CIDOC-CRM declares its classes as {@code rdfs:Class}, which an OWL model does not list, so
+ * the classes are additionally typed as {@code owl:Class} for the class listing to have work to do.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassListingBenchmark {
+
+    private OntologyReasoner reasoner;
+
+    @Setup
+    public void setUp() throws FileNotFoundException {
+        OntologyReasoner.disableLogging();
+        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
+        model.read(new FileInputStream(new File("examples/schema.rdfs")), null, "RDF/XML");
+        for (Resource cls : model.listSubjectsWithProperty(RDF.type, RDFS.Class).toList()) {
+            model.add(cls, RDF.type, OWL.Class);
+        }
+        reasoner = new OntologyReasoner();
+        reasoner.setModel(model);
+    }
+
+    @Benchmark
+    public Collection<String> getAllClasses() {
+        return reasoner.getAllClasses();
+    }
+
+    @Benchmark
+    public void forEachClass(Blackhole blackhole) {
+        reasoner.forEachClass(blackhole::consume);
+    }
+
+    @Benchmark
+    public Collection<String> getAllProperties() {
+        return reasoner.getAllProperties();
+    }
+
+    @Benchmark
+    public void forEachProperty(Blackhole blackhole) {
+        reasoner.forEachProperty(blackhole::consume);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ClassListingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,58 @@
+package gr.forth.ics.isl.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import gr.forth.ics.isl.FormatSniffer;
+
+/**
+ * Measures the cost of detecting the format of the example files from their first bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatSnifferBenchmark {
+
+    @Param({"examples/schema.rdfs", "examples/instances.ttl", "examples/instance.rdf"})
+    public String file;
+
+    private byte[] head;
+    private int length;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] content = Files.readAllBytes(Paths.get(file));
+        length = Math.min(content.length, FormatSniffer.HEAD_SIZE);
+        head = new byte[length];
+        System.arraycopy(content, 0, head, 0, length);
+    }
+
+    @Benchmark
+    public FormatSniffer.Detection detect() {
+        return FormatSniffer.detect(head, length);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FormatSnifferBenchmark.class.getSimpleName()).build()).run();
+    }
+}
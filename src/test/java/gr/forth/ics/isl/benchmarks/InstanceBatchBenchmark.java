@@ -0,0 +1,101 @@
+package gr.forth.ics.isl.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import gr.forth.ics.isl.InstanceFetcher;
+
+/**
+ * Compares looking up the instances of many classes one after the other with the batch lookup
+ * of {@link InstanceFetcher#getInstanceUris(Collection, ForkJoinPool)} on pools of increasing
+ * size. The result cache is disabled, so every invocation reads the graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstanceBatchBenchmark {
+
+    private static final String NS = "http://example.org/bench#";
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"200"})
+    public int classes;
+
+    @Param({"500"})
+    public int instancesPerClass;
+
+    private InstanceFetcher fetcher;
+    private List<String> classUris;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
+        classUris = new ArrayList<>();
+        for (int c = 0; c < classes; c++) {
+            Resource cls = model.createResource(NS + "C" + c);
+            classUris.add(cls.getURI());
+            for (int i = 0; i < instancesPerClass; i++) {
+                Resource instance = model.createResource(NS + "i" + c + "_" + i);
+                model.add(instance, RDF.type, cls);
+                model.add(instance, RDFS.label, "instance " + i);
+            }
+        }
+        fetcher = new InstanceFetcher(model);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public void sequential(Blackhole blackhole) {
+        for (String classUri : classUris) {
+            blackhole.consume(fetcher.getInstanceUris(classUri));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Collection<Pair<String, String>>> batch() {
+        return fetcher.getInstanceUris(classUris, pool);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(InstanceBatchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,82 @@
+package gr.forth.ics.isl.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import gr.forth.ics.isl.OntologyReasoner;
+import gr.forth.ics.isl.ReasoningProfile;
+
+/**
+ * Compares the cost of loading and validating {@code examples/schema.rdfs} under every
+ * reasoning profile. Running {@link #main(String[])} first prints what each profile
+ * reports for the schema, so cost can be weighed against result quality.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ReasoningProfileBenchmark {
+
+    private static final String SCHEMA = "examples/schema.rdfs";
+
+    @Param({"NONE", "RDFS", "OWL_MICRO", "OWL_MINI", "PELLET"})
+    public ReasoningProfile profile;
+
+    private byte[] content;
+
+    @Setup
+    public void setUp() throws IOException {
+        content = Files.readAllBytes(Paths.get(SCHEMA));
+    }
+
+    private static OntModel read(ReasoningProfile profile, byte[] content) {
+        OntModel model = ModelFactory.createOntologyModel(profile.getSpec());
+        model.read(new ByteArrayInputStream(content), null, "RDF/XML");
+        return model;
+    }
+
+    @Benchmark
+    public boolean loadAndValidate() {
+        OntologyReasoner reasoner = new OntologyReasoner(profile);
+        reasoner.setModel(read(profile, content));
+        return reasoner.isConsistent();
+    }
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        OntologyReasoner.disableLogging();
+        byte[] content = Files.readAllBytes(Paths.get(SCHEMA));
+        System.out.printf("%-10s %10s %8s %10s %12s%n", "profile", "consistent", "classes", "properties", "statements");
+        for (ReasoningProfile profile : ReasoningProfile.values()) {
+            OntModel model = read(profile, content);
+            OntologyReasoner reasoner = new OntologyReasoner(profile);
+            reasoner.setModel(model);
+            // Statements visible to queries, including the ones the profile infers
+            System.out.printf("%-10s %10s %8d %10d %12d%n", profile, reasoner.isConsistent(),
+                    reasoner.getAllClasses().size(), reasoner.getAllProperties().size(),
+                    model.listStatements().toList().size());
+        }
+        new Runner(new OptionsBuilder().include(ReasoningProfileBenchmark.class.getSimpleName()).build()).run();
+    }
+}
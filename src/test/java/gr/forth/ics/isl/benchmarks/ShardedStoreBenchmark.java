@@ -0,0 +1,109 @@
+package gr.forth.ics.isl.benchmarks;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jena.ext.com.google.common.collect.Multimap;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import gr.forth.ics.isl.InstanceFetcher;
+import gr.forth.ics.isl.ShardedInstanceStore;
+
+/**
+ * Compares class lookups and full class / instance listings of {@link InstanceFetcher} over a
+ * single graph with those of a {@link ShardedInstanceStore} partitioned by primary type, for
+ * several shard counts. The fetcher's result cache is disabled and the store's scans run on a
+ * pool with one thread per available processor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardedStoreBenchmark {
+
+    private static final String NS = "http://example.org/bench#";
+
+    @Param({"1", "4", "16"})
+    public int shards;
+
+    @Param({"200"})
+    public int classes;
+
+    @Param({"500"})
+    public int instancesPerClass;
+
+    private InstanceFetcher fetcher;
+    private ShardedInstanceStore store;
+    private ForkJoinPool pool;
+    private String classUri;
+
+    @Setup
+    public void setUp() {
+        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
+        for (int c = 0; c < classes; c++) {
+            Resource cls = model.createResource(NS + "C" + c);
+            for (int i = 0; i < instancesPerClass; i++) {
+                Resource instance = model.createResource(NS + "i" + c + "_" + i);
+                model.add(instance, RDF.type, cls);
+                model.add(instance, RDFS.label, "instance " + i);
+            }
+        }
+        classUri = NS + "C" + (classes / 2);
+        fetcher = new InstanceFetcher(model);
+        store = fetcher.toShardedStore(shards, ShardedInstanceStore.Partitioning.PRIMARY_TYPE);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Collection<Pair<String, String>> fetcherInstances() {
+        return fetcher.getInstanceUris(classUri);
+    }
+
+    @Benchmark
+    public Collection<Pair<String, String>> storeInstances() {
+        return store.getInstanceUris(classUri);
+    }
+
+    @Benchmark
+    public Multimap<String, Pair<String, String>> fetcherClassAndInstances() {
+        return fetcher.getClassAndInstanceUris();
+    }
+
+    @Benchmark
+    public Multimap<String, Pair<String, String>> storeClassAndInstances() {
+        return store.getClassAndInstanceUris(pool);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ShardedStoreBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,72 @@
+package gr.forth.ics.isl.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import gr.forth.ics.isl.OntologyIdentifier;
+import gr.forth.ics.isl.OntologyReasoner;
+
+/**
+ * Measures the time to the first result of a fresh JVM: every fork runs a single invocation
+ * without warmup, so class loading and Jena's initialization are part of the score. The files
+ * are read in the setup without touching any Jena class.
+ *
+ * <p>To measure the effect of an AppCDS archive created with {@code mvn package -Pcds}, run the
+ * benchmark from the jar with the archive's class path and append
+ * {@code -jvmArgsAppend -XX:SharedArchiveFile=target/reasoner.jsa}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+    private String schemaContent;
+    private File schemaFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        schemaFile = new File("examples/schema.rdfs");
+        schemaContent = new String(Files.readAllBytes(schemaFile.toPath()), StandardCharsets.UTF_8);
+        // The string based entry points reject a byte order mark
+        if (schemaContent.startsWith("\uFEFF")) {
+            schemaContent = schemaContent.substring(1);
+        }
+    }
+
+    @Benchmark
+    public boolean isSchema() {
+        return new OntologyIdentifier().isSchema(schemaContent, ".rdfs");
+    }
+
+    @Benchmark
+    public Collection<String> getAllClasses() throws IOException {
+        OntologyReasoner reasoner = new OntologyReasoner();
+        reasoner.initiateModel(schemaFile);
+        return reasoner.getAllClasses();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StartupBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,97 @@
+package gr.forth.ics.isl.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import gr.forth.ics.isl.UnionGraphView;
+
+/**
+ * Compares lookups over many loaded ontologies through a chain of sub-models, as
+ * {@code OntologyReasoner} used to build it, with the same lookups through a {@link UnionGraphView}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnionGraphBenchmark {
+
+    // Lookups through the sub-model chain grow exponentially with its depth, so larger counts do not finish
+    @Param({"5", "10", "15"})
+    public int ontologies;
+
+    private Graph subModels;
+    private Graph view;
+    private Node subject;
+    private Node predicate;
+
+    @Setup
+    public void setUp() {
+        OntModel chain = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
+        UnionGraphView union = new UnionGraphView();
+        for (int o = 0; o < ontologies; o++) {
+            OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
+            for (int c = 0; c < 500; c++) {
+                String uri = "http://example.org/o" + o + "#C" + c;
+                model.createClass(uri).addLabel("Class " + c, null);
+            }
+            // Each ontology has a property of its own
+            model.createObjectProperty("http://example.org/o" + o + "#p");
+            OntModel tmp = chain;
+            chain = model;
+            chain.addSubModel(tmp);
+            union.addGraph(model.getBaseModel().getGraph());
+        }
+        subModels = chain.getGraph();
+        view = union;
+        subject = NodeFactory.createURI("http://example.org/o0#C42");
+        predicate = NodeFactory.createURI("http://example.org/o0#p");
+    }
+
+    @Benchmark
+    public int subModelsBySubject() {
+        return subModels.find(subject, RDFS.label.asNode(), Node.ANY).toList().size();
+    }
+
+    @Benchmark
+    public int unionViewBySubject() {
+        return view.find(subject, RDFS.label.asNode(), Node.ANY).toList().size();
+    }
+
+    @Benchmark
+    public int subModelsByProperty() {
+        return subModels.find(predicate, RDF.type.asNode(), Node.ANY).toList().size();
+    }
+
+    @Benchmark
+    public int unionViewByProperty() {
+        return view.find(predicate, RDF.type.asNode(), Node.ANY).toList().size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(UnionGraphBenchmark.class.getSimpleName()).build()).run();
+    }
+}